@@ -1,10 +1,14 @@
 package com.hortifruti.sl.hortifruti.config;
 
+import com.hortifruti.sl.hortifruti.config.http.ProviderJsonCodec;
+import com.hortifruti.sl.hortifruti.dto.invoice.FocusNfeInvoice;
 import com.hortifruti.sl.hortifruti.exception.InvoiceException;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -14,6 +18,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
 
 @Component
+@RequiredArgsConstructor
 public class FocusNfeApiClient {
 
   @Value("${focus.nfe.token}")
@@ -24,7 +29,10 @@ public class FocusNfeApiClient {
 
   private final String URL_BASE_POST = "/v2/nfe?ref=";
 
-  private final RestTemplate restTemplate = new RestTemplate();
+  @Qualifier("focusNfeRestTemplate")
+  private final RestTemplate restTemplate;
+
+  private final ProviderJsonCodec providerJsonCodec;
 
   public String sendRequest(String ref, String payload) {
     try {
@@ -42,17 +50,28 @@ public class FocusNfeApiClient {
     }
   }
 
-  public String sendGetRequest(String ref, int completa) {
+  /**
+   * Consulta uma NF-e e decodifica a resposta direto dos bytes recebidos, sem passar por String.
+   *
+   * @param ref Referência da nota fiscal
+   * @param completa 1 para incluir a requisição completa da nota
+   */
+  public FocusNfeInvoice getInvoice(String ref, int completa) {
     try {
       String url = focusNfeApiUrl + "/v2/nfe/" + ref + "?completa=" + completa;
 
       HttpHeaders headers = createHeaders();
       HttpEntity<String> entity = new HttpEntity<>(headers);
 
-      ResponseEntity<String> response =
-          restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
+      ResponseEntity<byte[]> response =
+          restTemplate.exchange(url, HttpMethod.GET, entity, byte[].class);
 
-      return response.getBody();
+      if (response.getBody() == null || response.getBody().length == 0) {
+        throw new InvoiceException("Resposta vazia ao consultar a NFe com referência: " + ref);
+      }
+      return providerJsonCodec.read(response.getBody(), FocusNfeInvoice.class);
+    } catch (InvoiceException e) {
+      throw e;
     } catch (Exception e) {
       throw new InvoiceException("Erro ao consultar a NFe com referência: " + ref, e);
     }
@@ -1,23 +1,36 @@
 package com.hortifruti.sl.hortifruti.config;
 
+import io.netty.channel.ChannelOption;
+import java.time.Duration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 @Configuration
 public class WebClientConfig {
 
   @Bean
   public WebClient webClient(WebClient.Builder builder) {
-    ExchangeStrategies strategies =
-        ExchangeStrategies.builder()
-            .codecs(
-                configurer -> {
-                  configurer.defaultCodecs().maxInMemorySize(10 * 1024 * 1024);
-                })
+    // Pool próprio com métricas em reactor.netty.connection.provider.* (name=webclient)
+    ConnectionProvider connectionProvider =
+        ConnectionProvider.builder("webclient")
+            .maxConnections(50)
+            .pendingAcquireTimeout(Duration.ofSeconds(10))
+            .maxIdleTime(Duration.ofSeconds(30))
+            .maxLifeTime(Duration.ofMinutes(5))
+            .evictInBackground(Duration.ofSeconds(30))
+            .metrics(true)
             .build();
 
-    return builder.exchangeStrategies(strategies).build();
+    // Sem compressão: os downloads de arquivos repassam o corpo e o Content-Length do provedor
+    HttpClient httpClient =
+        HttpClient.create(connectionProvider)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 10_000)
+            .responseTimeout(Duration.ofSeconds(60));
+
+    return builder.clientConnector(new ReactorClientHttpConnector(httpClient)).build();
   }
 }
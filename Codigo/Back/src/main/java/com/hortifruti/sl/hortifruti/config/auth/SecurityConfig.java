@@ -48,7 +48,9 @@ public class SecurityConfig {
                         "/v3/api-docs/**",
                         "/scheduler/**",
                         "/backup/oauth2callback",
-                        "/chatbot/webhook")
+                        "/chatbot/webhook",
+                        // Autenticado no handshake pelo token na URL
+                        "/ws/**")
                     .permitAll()
                     .requestMatchers(org.springframework.http.HttpMethod.GET, "/clients/**")
                     .permitAll()
@@ -72,6 +72,9 @@ public class SecurityFilter extends OncePerRequestFilter {
   private boolean isSchedulerEndpoint(String uri) {
     return uri.startsWith("/scheduler/health")
         || uri.startsWith("/scheduler/check-overdue")
-        || uri.startsWith("/scheduler/check-database-storage");
+        || uri.startsWith("/scheduler/check-database-storage")
+        || uri.startsWith("/scheduler/check-total-drift")
+        || uri.startsWith("/scheduler/cache/evict")
+        || uri.startsWith("/scheduler/invoice-snapshots/backfill");
   }
 }
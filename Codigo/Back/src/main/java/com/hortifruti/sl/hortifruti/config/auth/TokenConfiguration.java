@@ -51,6 +51,20 @@ public class TokenConfiguration {
     }
   }
 
+  /** Instante em que o token deixa de valer; o token precisa ser válido. */
+  public Instant getExpirationFromToken(String token) {
+    try {
+      return JWT.require(algoritmo)
+          .withIssuer("auth")
+          .build()
+          .verify(token)
+          .getExpiresAtAsInstant();
+    } catch (Exception e) {
+      throw new TokenException(
+          "O token fornecido é inválido ou expirou. Por favor, faça login novamente.", e);
+    }
+  }
+
   private Instant generateExpirationDate() {
     return LocalDateTime.now().plusMinutes(minutosExpiracao).toInstant(ZoneOffset.of("-03:00"));
   }
@@ -1,15 +1,19 @@
 package com.hortifruti.sl.hortifruti.config.billet;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.hortifruti.sl.hortifruti.config.http.ProviderJsonCodec;
+import com.hortifruti.sl.hortifruti.dto.billet.SicoobBillet;
+import com.hortifruti.sl.hortifruti.dto.billet.SicoobResponse;
 import com.hortifruti.sl.hortifruti.exception.BilletException;
 import java.io.IOException;
+import java.util.List;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
-import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
@@ -24,19 +28,28 @@ public class BilletHttpClient {
   @Value("${sicoob.api.url}")
   private String apiUrl;
 
+  @Qualifier("billetRestTemplate")
   private final RestTemplate restTemplate;
+
   private final SicoobToken sicoobToken;
-  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final ProviderJsonCodec providerJsonCodec;
+
+  /** Resposta com um único boleto em {@code resultado}. */
+  public static final TypeReference<SicoobResponse<SicoobBillet>> BILLET = new TypeReference<>() {};
+
+  /** Resposta com uma lista de boletos em {@code resultado}. */
+  public static final TypeReference<SicoobResponse<List<SicoobBillet>>> BILLET_LIST =
+      new TypeReference<>() {};
 
-  public JsonNode get(String endpoint) throws IOException {
+  public <T> T get(String endpoint, TypeReference<T> type) throws IOException {
     try {
       HttpHeaders headers = createHeaders();
       HttpEntity<String> entity = new HttpEntity<>(headers);
 
-      ResponseEntity<String> response =
-          restTemplate.exchange(apiUrl + endpoint, HttpMethod.GET, entity, String.class);
+      ResponseEntity<byte[]> response =
+          restTemplate.exchange(apiUrl + endpoint, HttpMethod.GET, entity, byte[].class);
 
-      return processResponse(response);
+      return processResponse(response, type);
     } catch (HttpClientErrorException | HttpServerErrorException ex) {
       throw new BilletException(
           "Erro ao realizar requisição GET: " + ex.getResponseBodyAsString(), ex);
@@ -45,15 +58,15 @@ public class BilletHttpClient {
     }
   }
 
-  public JsonNode post(String endpoint, Object body) throws IOException {
+  public <T> T post(String endpoint, Object body, TypeReference<T> type) throws IOException {
     try {
       HttpHeaders headers = createHeaders();
       HttpEntity<Object> entity = new HttpEntity<>(body, headers);
 
-      ResponseEntity<String> response =
-          restTemplate.postForEntity(apiUrl + endpoint, entity, String.class);
+      ResponseEntity<byte[]> response =
+          restTemplate.postForEntity(apiUrl + endpoint, entity, byte[].class);
 
-      return processResponse(response);
+      return processResponse(response, type);
     } catch (HttpClientErrorException | HttpServerErrorException ex) {
       throw new BilletException(
           "Erro ao realizar requisição POST: " + ex.getResponseBodyAsString(), ex);
@@ -62,19 +75,17 @@ public class BilletHttpClient {
     }
   }
 
-  public JsonNode postCancel(String endpoint, Object body) throws IOException {
+  /**
+   * Envia o pedido de baixa. O corpo da resposta não é usado, então não é decodificado.
+   *
+   * @return Status HTTP devolvido pelo Sicoob
+   */
+  public HttpStatusCode postCancel(String endpoint, Object body) throws IOException {
     try {
       HttpHeaders headers = createHeaders();
       HttpEntity<Object> entity = new HttpEntity<>(body, headers);
 
-      ResponseEntity<String> response =
-          restTemplate.postForEntity(apiUrl + endpoint, entity, String.class);
-
-      if (response.getStatusCode() == HttpStatus.NO_CONTENT) {
-        return null;
-      }
-
-      return processResponse(response);
+      return restTemplate.postForEntity(apiUrl + endpoint, entity, Void.class).getStatusCode();
     } catch (HttpClientErrorException | HttpServerErrorException ex) {
       throw new BilletException(
           "Erro ao realizar requisição POST: " + ex.getResponseBodyAsString(), ex);
@@ -111,12 +122,18 @@ public class BilletHttpClient {
     }
   }
 
-  public ResponseEntity<JsonNode> getWithResponse(String endpoint) throws IOException {
+  public <T> ResponseEntity<T> getWithResponse(String endpoint, TypeReference<T> type)
+      throws IOException {
     try {
       HttpHeaders headers = createHeaders();
       HttpEntity<String> entity = new HttpEntity<>(headers);
 
-      return restTemplate.exchange(apiUrl + endpoint, HttpMethod.GET, entity, JsonNode.class);
+      ResponseEntity<byte[]> response =
+          restTemplate.exchange(apiUrl + endpoint, HttpMethod.GET, entity, byte[].class);
+
+      byte[] body = response.getBody();
+      T decoded = body == null || body.length == 0 ? null : providerJsonCodec.read(body, type);
+      return new ResponseEntity<>(decoded, response.getHeaders(), response.getStatusCode());
     } catch (HttpClientErrorException | HttpServerErrorException ex) {
       throw new BilletException(
           "Erro ao realizar requisição GET: " + ex.getResponseBodyAsString(), ex);
@@ -132,11 +149,12 @@ public class BilletHttpClient {
     return headers;
   }
 
-  private JsonNode processResponse(ResponseEntity<String> response) throws IOException {
+  private <T> T processResponse(ResponseEntity<byte[]> response, TypeReference<T> type)
+      throws IOException {
     if (response.getBody() == null) {
       throw new BilletException("A resposta da API está nula.");
     }
-    return objectMapper.readTree(response.getBody());
+    return providerJsonCodec.read(response.getBody(), type);
   }
 
   public String getApiUrl() {
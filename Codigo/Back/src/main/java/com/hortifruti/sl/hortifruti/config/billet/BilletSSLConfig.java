@@ -1,21 +1,19 @@
 package com.hortifruti.sl.hortifruti.config.billet;
 
 import com.hortifruti.sl.hortifruti.config.Base64FileDecoder;
+import com.hortifruti.sl.hortifruti.config.http.OutboundHttpClientFactory;
+import com.hortifruti.sl.hortifruti.config.http.OutboundHttpClientFactory.PoolSettings;
 import com.hortifruti.sl.hortifruti.exception.BilletException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.security.KeyStore;
 import java.security.cert.X509Certificate;
-import java.util.Arrays;
+import java.time.Duration;
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLSession;
 import javax.net.ssl.TrustManagerFactory;
 import lombok.RequiredArgsConstructor;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
-import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
-import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
 import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactory;
 import org.apache.hc.core5.http.message.BasicHeader;
 import org.apache.hc.core5.ssl.SSLContexts;
@@ -23,7 +21,6 @@ import org.apache.hc.core5.ssl.TrustStrategy;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 @Configuration
@@ -31,6 +28,7 @@ import org.springframework.web.client.RestTemplate;
 public class BilletSSLConfig {
 
   private final Base64FileDecoder base64FileDecoder;
+  private final OutboundHttpClientFactory clientFactory;
 
   @Value("${password.pfx}")
   private String pfxPassword;
@@ -82,24 +80,14 @@ public class BilletSSLConfig {
                   return hostname.endsWith("sicoob.com.br");
                 }
               });
-      PoolingHttpClientConnectionManager connectionManager =
-          PoolingHttpClientConnectionManagerBuilder.create()
-              .setSSLSocketFactory(socketFactory)
-              .build();
-
-      CloseableHttpClient httpClient =
-          HttpClients.custom()
-              .setConnectionManager(connectionManager)
-              .setDefaultHeaders(Arrays.asList(new BasicHeader("Accept", "application/json")))
-              .build();
-
-      HttpComponentsClientHttpRequestFactory factory = new HttpComponentsClientHttpRequestFactory();
-      factory.setHttpClient(httpClient);
-      factory.setConnectTimeout(30000);
-      factory.setConnectionRequestTimeout(30000);
-      factory.setReadTimeout(30000);
-
-      return new RestTemplate(factory);
+      return clientFactory.create(
+          "sicoob",
+          new PoolSettings(
+              20,
+              Duration.ofSeconds(30),
+              Duration.ofSeconds(30),
+              new BasicHeader("Accept", "application/json")),
+          socketFactory);
 
     } catch (BilletException e) {
       throw e;
@@ -1,10 +1,19 @@
 package com.hortifruti.sl.hortifruti.config.billet;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.hortifruti.sl.hortifruti.config.http.ProviderJsonCodec;
 import com.hortifruti.sl.hortifruti.exception.BilletException;
+import jakarta.annotation.PreDestroy;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
@@ -18,11 +27,19 @@ import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RestTemplate;
 
+/**
+ * Gerencia o token OAuth do Sicoob. A renovação passa por um único future em andamento, de modo que
+ * requisições concorrentes nunca disparam mais de uma chamada ao servidor de autenticação, e é
+ * agendada em segundo plano antes da expiração informada em {@code expires_in}.
+ */
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class SicoobToken {
-  private String accessToken;
-  private long tokenExpiresAt;
+  private static final long DEFAULT_EXPIRES_IN_SECONDS = 3600;
+  private static final long MIN_REFRESH_MARGIN_MS = 30_000;
+  private static final long MAX_REFRESH_MARGIN_MS = 5 * 60 * 1000;
+  private static final long RETRY_DELAY_MS = 15_000;
 
   @Value("${sicoob.client.id}")
   private String clientId;
@@ -36,19 +53,98 @@ public class SicoobToken {
   @Qualifier("billetRestTemplate")
   private final RestTemplate restTemplate;
 
+  private final ProviderJsonCodec providerJsonCodec;
+
+  private final AtomicReference<CompletableFuture<TokenState>> inFlight = new AtomicReference<>();
+  private final ScheduledExecutorService scheduler =
+      Executors.newSingleThreadScheduledExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "sicoob-token-refresh");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private volatile TokenState current;
+  private volatile ScheduledFuture<?> scheduledRefresh;
+
   /**
    * Obtém um token de acesso para a API do Sicoob.
    *
+   * <p>Enquanto o token atual for válido ele é devolvido sem bloqueio, mesmo que a renovação
+   * antecipada já esteja em andamento. Só há espera quando não existe token válido.
+   *
    * @return Token de acesso válido
    * @throws BilletException Se houver erro ao obter ou processar o token
    */
   public String getAccessToken() {
+    TokenState state = current;
+    long now = System.currentTimeMillis();
+
+    if (state != null && now < state.expiresAt()) {
+      if (now >= state.refreshAt()) {
+        refreshAsync();
+      }
+      return state.accessToken();
+    }
+
     try {
-      if (accessToken != null && System.currentTimeMillis() < tokenExpiresAt - 30000) {
-        System.out.println("[DEBUG] Token ainda válido. Retornando token existente.");
-        return accessToken;
+      return refreshAsync().join().accessToken();
+    } catch (CompletionException ex) {
+      if (ex.getCause() instanceof BilletException billetException) {
+        throw billetException;
+      }
+      throw new BilletException("Erro inesperado ao obter token de acesso.", ex.getCause());
+    }
+  }
+
+  @PreDestroy
+  void shutdown() {
+    scheduler.shutdownNow();
+  }
+
+  /** Inicia uma renovação ou reaproveita a que já está em andamento. */
+  private CompletableFuture<TokenState> refreshAsync() {
+    CompletableFuture<TokenState> created = new CompletableFuture<>();
+    while (!inFlight.compareAndSet(null, created)) {
+      CompletableFuture<TokenState> existing = inFlight.get();
+      if (existing != null) {
+        return existing;
       }
+    }
+
+    scheduler.execute(
+        () -> {
+          try {
+            TokenState state = requestToken();
+            current = state;
+            scheduleRefresh(state.refreshAt() - System.currentTimeMillis());
+            created.complete(state);
+          } catch (RuntimeException ex) {
+            log.warn("Falha ao renovar token do Sicoob: {}", ex.getMessage());
+            TokenState state = current;
+            if (state != null && System.currentTimeMillis() < state.expiresAt()) {
+              scheduleRefresh(RETRY_DELAY_MS);
+            }
+            created.completeExceptionally(ex);
+          } finally {
+            inFlight.compareAndSet(created, null);
+          }
+        });
+
+    return created;
+  }
 
+  private void scheduleRefresh(long delayMs) {
+    ScheduledFuture<?> previous = scheduledRefresh;
+    if (previous != null) {
+      previous.cancel(false);
+    }
+    scheduledRefresh =
+        scheduler.schedule(this::refreshAsync, Math.max(delayMs, 0), TimeUnit.MILLISECONDS);
+  }
+
+  private TokenState requestToken() {
+    try {
       HttpHeaders headers = new HttpHeaders();
       headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
 
@@ -61,44 +157,61 @@ public class SicoobToken {
 
       HttpEntity<MultiValueMap<String, String>> request = new HttpEntity<>(body, headers);
 
-      ResponseEntity<String> response = restTemplate.postForEntity(authUrl, request, String.class);
+      ResponseEntity<byte[]> response = restTemplate.postForEntity(authUrl, request, byte[].class);
 
-      String token = processTokenResponse(response);
-
-      accessToken = token;
-
-      tokenExpiresAt = System.currentTimeMillis() + (55 * 60 * 1000);
-
-      return token;
+      TokenState state = processTokenResponse(response);
+      log.info(
+          "Token do Sicoob renovado; expira em {}s.",
+          (state.expiresAt() - System.currentTimeMillis()) / 1000);
+      return state;
 
     } catch (HttpClientErrorException | HttpServerErrorException ex) {
       throw new BilletException(
           "Erro ao obter token de acesso: " + ex.getResponseBodyAsString(), ex);
+    } catch (BilletException ex) {
+      throw ex;
     } catch (Exception ex) {
       throw new BilletException("Erro inesperado ao obter token de acesso.", ex);
     }
   }
 
   /**
-   * Processa a resposta da API para extrair o token de acesso.
+   * Processa a resposta da API para extrair o token de acesso e sua validade.
    *
    * @param response Resposta da API
-   * @return Token de acesso
+   * @return Token de acesso com os instantes de renovação e expiração
    * @throws IOException Se houver erro ao processar a resposta
    * @throws BilletException Se o token não for encontrado ou a resposta for inválida
    */
-  private String processTokenResponse(ResponseEntity<String> response) throws IOException {
-    if (response.getBody() == null || response.getBody().trim().isEmpty()) {
+  private TokenState processTokenResponse(ResponseEntity<byte[]> response) throws IOException {
+    if (response.getBody() == null || response.getBody().length == 0) {
       throw new BilletException("Resposta de token vazia do servidor.");
     }
 
-    ObjectMapper mapper = new ObjectMapper();
-    JsonNode jsonResponse = mapper.readTree(response.getBody());
+    TokenResponse tokenResponse = providerJsonCodec.read(response.getBody(), TokenResponse.class);
 
-    if (!jsonResponse.has("access_token") || jsonResponse.get("access_token").isNull()) {
+    if (tokenResponse == null || tokenResponse.accessToken() == null) {
       throw new BilletException("Token de acesso não encontrado na resposta.");
     }
 
-    return jsonResponse.get("access_token").asText();
+    long expiresInMs =
+        (tokenResponse.expiresIn() == null ? DEFAULT_EXPIRES_IN_SECONDS : tokenResponse.expiresIn())
+            * 1000L;
+    if (expiresInMs <= 0) {
+      expiresInMs = DEFAULT_EXPIRES_IN_SECONDS * 1000L;
+    }
+    long margin = Math.clamp(expiresInMs / 10, MIN_REFRESH_MARGIN_MS, MAX_REFRESH_MARGIN_MS);
+    long now = System.currentTimeMillis();
+
+    return new TokenState(
+        tokenResponse.accessToken(),
+        now + Math.max(expiresInMs - margin, expiresInMs / 2),
+        now + expiresInMs - Math.min(MIN_REFRESH_MARGIN_MS, expiresInMs / 2));
   }
+
+  private record TokenState(String accessToken, long refreshAt, long expiresAt) {}
+
+  private record TokenResponse(
+      @JsonProperty("access_token") String accessToken,
+      @JsonProperty("expires_in") Long expiresIn) {}
 }
@@ -1,16 +1,21 @@
 package com.hortifruti.sl.hortifruti.config.climate;
 
+import com.hortifruti.sl.hortifruti.exception.ProviderUnavailableException;
 import com.hortifruti.sl.hortifruti.exception.WeatherApiException;
 import java.util.Map;
+import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
 @Component
+@RequiredArgsConstructor
 public class OpenWeatherClient {
   private static final Logger logger = LoggerFactory.getLogger(OpenWeatherClient.class);
 
@@ -29,6 +34,15 @@ public class OpenWeatherClient {
   @Value("${app.openweather.forecastUrl}")
   private String forecastUrl;
 
+  @Qualifier("openWeatherRestTemplate")
+  private final RestTemplate restTemplate;
+
+  /**
+   * Última previsão obtida, devolvida enquanto a API estiver fora (erro 5xx ou de rede) ou com o
+   * circuito aberto. Erros de configuração (4xx) nunca caem nela.
+   */
+  private volatile Map<String, Object> lastForecast;
+
   /**
    * Busca a previsão do tempo para 5 dias, em intervalos de 3 horas
    *
@@ -52,20 +66,30 @@ public class OpenWeatherClient {
             + lang;
 
     try {
-      RestTemplate restTemplate = new RestTemplate();
-
-      SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-      factory.setConnectTimeout(30000);
-      factory.setReadTimeout(30000);
-      restTemplate.setRequestFactory(factory);
-
       Map<String, Object> response = restTemplate.getForObject(url, Map.class);
 
       if (response != null) {
+        lastForecast = response;
         return response;
       } else {
         throw new WeatherApiException("Resposta nula da API OpenWeather");
       }
+    } catch (ProviderUnavailableException e) {
+      if (lastForecast != null) {
+        logger.warn("OpenWeather indisponível; usando a última previsão obtida.");
+        return lastForecast;
+      }
+      throw new WeatherApiException("Falha ao buscar dados do clima: " + e.getMessage(), e);
+    } catch (HttpServerErrorException | ResourceAccessException e) {
+      // Só falhas do provedor ou de rede; erros 4xx (chave revogada, cidade errada) propagam
+      if (lastForecast != null) {
+        logger.warn(
+            "Erro ao chamar a API OpenWeather ({}); usando a última previsão obtida.",
+            e.getMessage());
+        return lastForecast;
+      }
+      logger.error("Erro ao chamar a API OpenWeather: {}", e.getMessage(), e);
+      throw new WeatherApiException("Falha ao buscar dados do clima: " + e.getMessage(), e);
     } catch (RestClientException e) {
       logger.error("Erro ao chamar a API OpenWeather: {}", e.getMessage(), e);
       String errorDetails = "";
@@ -0,0 +1,89 @@
+package com.hortifruti.sl.hortifruti.config.email;
+
+import com.hortifruti.sl.hortifruti.config.http.OutboundResilience;
+import com.sendgrid.Client;
+import com.sendgrid.SendGrid;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Cliente do SendGrid compartilhado. A biblioteca usa o HttpClient 4, então o pool é montado aqui e
+ * exposto com os mesmos nomes de métrica dos pools do {@code OutboundHttpClientFactory}.
+ */
+@Configuration
+public class SendGridConfig {
+  public static final String PROVIDER = "sendgrid";
+  private static final int MAX_CONNECTIONS = 10;
+  private static final int CONNECT_TIMEOUT_MS = 5000;
+  private static final int READ_TIMEOUT_MS = 30000;
+
+  @Value("${sendgrid.api.key}")
+  private String sendGridApiKey;
+
+  @Bean(destroyMethod = "close")
+  public CloseableHttpClient sendGridHttpClient(MeterRegistry meterRegistry) {
+    PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+    connectionManager.setMaxTotal(MAX_CONNECTIONS);
+    connectionManager.setDefaultMaxPerRoute(MAX_CONNECTIONS);
+    connectionManager.setValidateAfterInactivity(10000);
+
+    bindPoolGauge(meterRegistry, connectionManager, "leased", m -> m.getTotalStats().getLeased());
+    bindPoolGauge(
+        meterRegistry, connectionManager, "available", m -> m.getTotalStats().getAvailable());
+    Gauge.builder(
+            "httpcomponents.httpclient.pool.total.pending",
+            connectionManager,
+            m -> m.getTotalStats().getPending())
+        .tag("httpclient", PROVIDER)
+        .register(meterRegistry);
+    Gauge.builder(
+            "httpcomponents.httpclient.pool.total.max",
+            connectionManager,
+            m -> m.getTotalStats().getMax())
+        .tag("httpclient", PROVIDER)
+        .register(meterRegistry);
+
+    RequestConfig requestConfig =
+        RequestConfig.custom()
+            .setConnectTimeout(CONNECT_TIMEOUT_MS)
+            .setConnectionRequestTimeout(CONNECT_TIMEOUT_MS)
+            .setSocketTimeout(READ_TIMEOUT_MS)
+            .build();
+
+    return HttpClients.custom()
+        .setConnectionManager(connectionManager)
+        .setDefaultRequestConfig(requestConfig)
+        .evictExpiredConnections()
+        .evictIdleConnections(30, TimeUnit.SECONDS)
+        .build();
+  }
+
+  @Bean
+  public SendGrid sendGrid(
+      CloseableHttpClient sendGridHttpClient, OutboundResilience outboundResilience) {
+    outboundResilience.register(
+        PROVIDER, MAX_CONNECTIONS, Duration.ofMillis(READ_TIMEOUT_MS).dividedBy(2));
+    return new SendGrid(sendGridApiKey, new Client(sendGridHttpClient));
+  }
+
+  private void bindPoolGauge(
+      MeterRegistry meterRegistry,
+      PoolingHttpClientConnectionManager connectionManager,
+      String state,
+      ToDoubleFunction<PoolingHttpClientConnectionManager> value) {
+    Gauge.builder("httpcomponents.httpclient.pool.total.connections", connectionManager, value)
+        .tag("httpclient", PROVIDER)
+        .tag("state", state)
+        .register(meterRegistry);
+  }
+}
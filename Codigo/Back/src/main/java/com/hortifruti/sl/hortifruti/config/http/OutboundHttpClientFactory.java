@@ -0,0 +1,132 @@
+package com.hortifruti.sl.hortifruti.config.http;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactory;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.client.BufferingClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Monta os {@link RestTemplate} usados para falar com provedores externos. Cada provedor recebe o
+ * seu próprio pool de conexões com keep-alive, timeouts e gzip, e o pool é exposto no Micrometer
+ * como {@code httpcomponents.httpclient.pool.*} com a tag {@code httpclient=<provedor>}.
+ *
+ * <p>Os templates saem do {@link RestTemplateBuilder} do Spring Boot, então latência e erros por
+ * host já aparecem em {@code http.client.requests} (tag {@code client.name}). Toda chamada passa
+ * pelo bulkhead e pelo circuit breaker do provedor em {@link OutboundResilience}; o bulkhead tem o
+ * tamanho do pool, e chamadas acima da metade do read timeout contam como lentas.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OutboundHttpClientFactory {
+  private static final TimeValue IDLE_EVICTION = TimeValue.ofSeconds(30);
+  private static final TimeValue CONNECTION_TTL = TimeValue.ofMinutes(5);
+  private static final TimeValue VALIDATE_AFTER_INACTIVITY = TimeValue.ofSeconds(10);
+
+  private final RestTemplateBuilder restTemplateBuilder;
+  private final MeterRegistry meterRegistry;
+  private final OutboundResilience outboundResilience;
+  private final List<CloseableHttpClient> clients = new CopyOnWriteArrayList<>();
+
+  /** Limites de conexões e timeouts de um provedor. */
+  public record PoolSettings(
+      int maxConnections,
+      Duration connectTimeout,
+      Duration readTimeout,
+      Header... defaultHeaders) {}
+
+  public RestTemplate create(String provider, PoolSettings settings) {
+    return create(provider, settings, null);
+  }
+
+  /**
+   * Cria um {@link RestTemplate} com pool próprio.
+   *
+   * @param provider Nome do provedor, usado nas métricas do pool
+   * @param settings Limites e timeouts
+   * @param sslSocketFactory Fábrica TLS específica do provedor ou {@code null} para a padrão
+   */
+  public RestTemplate create(
+      String provider, PoolSettings settings, SSLConnectionSocketFactory sslSocketFactory) {
+    ConnectionConfig connectionConfig =
+        ConnectionConfig.custom()
+            .setConnectTimeout(Timeout.of(settings.connectTimeout()))
+            .setSocketTimeout(Timeout.of(settings.readTimeout()))
+            .setTimeToLive(CONNECTION_TTL)
+            .setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY)
+            .build();
+
+    PoolingHttpClientConnectionManagerBuilder managerBuilder =
+        PoolingHttpClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(settings.maxConnections())
+            .setMaxConnPerRoute(settings.maxConnections())
+            .setDefaultConnectionConfig(connectionConfig);
+    if (sslSocketFactory != null) {
+      managerBuilder.setSSLSocketFactory(sslSocketFactory);
+    }
+    PoolingHttpClientConnectionManager connectionManager = managerBuilder.build();
+
+    RequestConfig requestConfig =
+        RequestConfig.custom()
+            .setConnectionRequestTimeout(Timeout.of(settings.connectTimeout()))
+            .setResponseTimeout(Timeout.of(settings.readTimeout()))
+            .build();
+
+    // A compressão de conteúdo (Accept-Encoding: gzip, deflate) já vem habilitada no builder
+    CloseableHttpClient httpClient =
+        HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setDefaultRequestConfig(requestConfig)
+            .setDefaultHeaders(List.of(settings.defaultHeaders()))
+            .evictExpiredConnections()
+            .evictIdleConnections(IDLE_EVICTION)
+            .build();
+    clients.add(httpClient);
+
+    new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, provider)
+        .bindTo(meterRegistry);
+
+    outboundResilience.register(
+        provider, settings.maxConnections(), settings.readTimeout().dividedBy(2));
+
+    // Buffering para que o corpo seja lido dentro do bulkhead
+    return restTemplateBuilder
+        .requestFactory(
+            () ->
+                new BufferingClientHttpRequestFactory(
+                    new HttpComponentsClientHttpRequestFactory(httpClient)))
+        .additionalInterceptors(outboundResilience.interceptor(provider))
+        .build();
+  }
+
+  @PreDestroy
+  void close() {
+    for (CloseableHttpClient client : clients) {
+      try {
+        client.close();
+      } catch (IOException e) {
+        log.warn("Erro ao fechar cliente HTTP: {}", e.getMessage());
+      }
+    }
+  }
+}
@@ -0,0 +1,40 @@
+package com.hortifruti.sl.hortifruti.config.http;
+
+import com.hortifruti.sl.hortifruti.config.http.OutboundHttpClientFactory.PoolSettings;
+import java.time.Duration;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.client.RestTemplate;
+
+/** Clientes HTTP dos provedores externos, cada um com pool e timeouts próprios. */
+@Configuration
+@RequiredArgsConstructor
+public class OutboundHttpConfig {
+
+  private final OutboundHttpClientFactory clientFactory;
+
+  @Bean(name = "focusNfeRestTemplate")
+  public RestTemplate focusNfeRestTemplate() {
+    return clientFactory.create(
+        "focus-nfe", new PoolSettings(20, Duration.ofSeconds(10), Duration.ofSeconds(60)));
+  }
+
+  @Bean(name = "ultraMsgRestTemplate")
+  public RestTemplate ultraMsgRestTemplate() {
+    return clientFactory.create(
+        "ultramsg", new PoolSettings(10, Duration.ofSeconds(5), Duration.ofSeconds(30)));
+  }
+
+  @Bean(name = "openWeatherRestTemplate")
+  public RestTemplate openWeatherRestTemplate() {
+    return clientFactory.create(
+        "openweather", new PoolSettings(5, Duration.ofSeconds(5), Duration.ofSeconds(15)));
+  }
+
+  @Bean(name = "googleMapsRestTemplate")
+  public RestTemplate googleMapsRestTemplate() {
+    return clientFactory.create(
+        "google-maps", new PoolSettings(10, Duration.ofSeconds(5), Duration.ofSeconds(15)));
+  }
+}
@@ -0,0 +1,226 @@
+package com.hortifruti.sl.hortifruti.config.http;
+
+import com.hortifruti.sl.hortifruti.exception.ProviderUnavailableException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Isolamento das chamadas a provedores externos. Cada provedor tem um bulkhead (limite de chamadas
+ * simultâneas) e um circuit breaker: quando o provedor fica lento ou passa a falhar, as chamadas
+ * seguintes são recusadas na hora com {@link ProviderUnavailableException}, sem prender threads de
+ * requisição.
+ *
+ * <p>Estado, chamadas e ocupação aparecem em {@code resilience4j.circuitbreaker.*} e {@code
+ * resilience4j.bulkhead.*} (tag {@code name=<provedor>}); recusas em {@code outbound.rejected}.
+ */
+@Slf4j
+@Component
+public class OutboundResilience {
+  private static final Duration MAX_WAIT_FOR_SLOT = Duration.ofMillis(500);
+  private static final Duration OPEN_STATE_WAIT = Duration.ofSeconds(30);
+  private static final long BULKHEAD_RETRY_AFTER_SECONDS = 2;
+
+  private final CircuitBreakerRegistry circuitBreakers;
+  private final BulkheadRegistry bulkheads;
+  private final MeterRegistry meterRegistry;
+
+  /** Chamada bloqueante protegida. */
+  @FunctionalInterface
+  public interface ProviderCall<T> {
+    T call() throws IOException;
+  }
+
+  public OutboundResilience(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+    this.circuitBreakers = CircuitBreakerRegistry.of(circuitBreakerConfig(Duration.ofSeconds(30)));
+    this.bulkheads = BulkheadRegistry.of(BulkheadConfig.ofDefaults());
+    TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakers).bindTo(meterRegistry);
+    TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheads).bindTo(meterRegistry);
+  }
+
+  /**
+   * Registra um provedor.
+   *
+   * @param provider Nome do provedor, usado nas métricas e nos logs
+   * @param maxConcurrentCalls Chamadas simultâneas permitidas
+   * @param slowCallThreshold Duração a partir da qual uma chamada conta como lenta
+   */
+  public void register(String provider, int maxConcurrentCalls, Duration slowCallThreshold) {
+    bulkheads.bulkhead(
+        provider,
+        BulkheadConfig.custom()
+            .maxConcurrentCalls(maxConcurrentCalls)
+            .maxWaitDuration(MAX_WAIT_FOR_SLOT)
+            .build());
+    CircuitBreaker circuitBreaker =
+        circuitBreakers.circuitBreaker(provider, circuitBreakerConfig(slowCallThreshold));
+    circuitBreaker
+        .getEventPublisher()
+        .onStateTransition(
+            event ->
+                log.warn(
+                    "Circuito do provedor {}: {}",
+                    provider,
+                    event.getStateTransition().getToState()));
+  }
+
+  /**
+   * Interceptor para {@link org.springframework.web.client.RestTemplate}. O corpo da resposta é
+   * lido dentro da proteção, então a vaga do bulkhead só é liberada ao fim da transferência; para
+   * isso a fábrica de requisições precisa ser de buffering. Respostas 5xx e 429 contam como falha.
+   */
+  public ClientHttpRequestInterceptor interceptor(String provider) {
+    return (request, body, execution) ->
+        execute(
+            provider,
+            () -> {
+              ClientHttpResponse response = execution.execute(request, body);
+              response.getBody();
+              return response;
+            },
+            OutboundResilience::isServerError);
+  }
+
+  /** Executa a chamada sob o bulkhead e o circuit breaker do provedor. */
+  public <T> T execute(String provider, ProviderCall<T> call) throws IOException {
+    return execute(provider, call, result -> false);
+  }
+
+  /**
+   * Executa a chamada sob o bulkhead e o circuit breaker do provedor.
+   *
+   * @param failed Indica se um resultado sem exceção deve contar como falha do provedor
+   * @throws ProviderUnavailableException Se o circuito estiver aberto ou não houver vaga
+   */
+  public <T> T execute(String provider, ProviderCall<T> call, Predicate<T> failed)
+      throws IOException {
+    CircuitBreaker circuitBreaker = circuitBreakers.circuitBreaker(provider);
+    Bulkhead bulkhead = bulkheads.bulkhead(provider);
+    acquire(provider, circuitBreaker, bulkhead);
+
+    long start = System.nanoTime();
+    try {
+      T result = call.call();
+      long elapsed = System.nanoTime() - start;
+      if (failed.test(result)) {
+        circuitBreaker.onError(
+            elapsed,
+            TimeUnit.NANOSECONDS,
+            new IOException("Resposta de erro do provedor " + provider));
+      } else {
+        circuitBreaker.onSuccess(elapsed, TimeUnit.NANOSECONDS);
+      }
+      return result;
+    } catch (IOException | RuntimeException e) {
+      circuitBreaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, e);
+      throw e;
+    } finally {
+      bulkhead.onComplete();
+    }
+  }
+
+  /**
+   * Versão reativa de {@link #execute(String, ProviderCall)}, para corpos em streaming. A vaga do
+   * bulkhead fica ocupada até o fim, erro ou cancelamento do fluxo; recusas chegam como erro do
+   * fluxo.
+   */
+  public <T> Flux<T> executeFlux(String provider, Supplier<Flux<T>> call) {
+    return Flux.defer(
+            () -> {
+              CircuitBreaker circuitBreaker = circuitBreakers.circuitBreaker(provider);
+              Bulkhead bulkhead = bulkheads.bulkhead(provider);
+              try {
+                acquire(provider, circuitBreaker, bulkhead);
+              } catch (ProviderUnavailableException e) {
+                return Flux.error(e);
+              }
+
+              long start = System.nanoTime();
+              return call.get()
+                  .doOnComplete(
+                      () ->
+                          circuitBreaker.onSuccess(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                  .doOnError(
+                      e ->
+                          circuitBreaker.onError(
+                              System.nanoTime() - start, TimeUnit.NANOSECONDS, e))
+                  .doOnCancel(circuitBreaker::releasePermission)
+                  .doFinally(signal -> bulkhead.onComplete());
+            })
+        // A espera por vaga no bulkhead é bloqueante; não pode ocupar a thread de I/O
+        .subscribeOn(Schedulers.boundedElastic());
+  }
+
+  private void acquire(String provider, CircuitBreaker circuitBreaker, Bulkhead bulkhead) {
+    if (!circuitBreaker.tryAcquirePermission()) {
+      reject(provider, "circuit_open");
+      throw new ProviderUnavailableException(
+          provider,
+          "Serviço externo (" + provider + ") indisponível no momento. Tente novamente em breve.",
+          OPEN_STATE_WAIT.toSeconds());
+    }
+    if (!bulkhead.tryAcquirePermission()) {
+      circuitBreaker.releasePermission();
+      reject(provider, "bulkhead_full");
+      throw new ProviderUnavailableException(
+          provider,
+          "Serviço externo (" + provider + ") sobrecarregado no momento. Tente novamente em breve.",
+          BULKHEAD_RETRY_AFTER_SECONDS);
+    }
+  }
+
+  private void reject(String provider, String reason) {
+    Counter.builder("outbound.rejected")
+        .tag("provider", provider)
+        .tag("reason", reason)
+        .register(meterRegistry)
+        .increment();
+  }
+
+  private static CircuitBreakerConfig circuitBreakerConfig(Duration slowCallThreshold) {
+    return CircuitBreakerConfig.custom()
+        .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+        .slidingWindowSize(20)
+        .minimumNumberOfCalls(10)
+        .failureRateThreshold(50)
+        .slowCallDurationThreshold(slowCallThreshold)
+        .slowCallRateThreshold(80)
+        .waitDurationInOpenState(OPEN_STATE_WAIT)
+        .permittedNumberOfCallsInHalfOpenState(3)
+        // Erros 4xx são problema da requisição, não do provedor
+        .ignoreException(OutboundResilience::isClientError)
+        .build();
+  }
+
+  private static boolean isClientError(Throwable error) {
+    return error instanceof WebClientResponseException e && e.getStatusCode().is4xxClientError();
+  }
+
+  private static boolean isServerError(ClientHttpResponse response) {
+    try {
+      return response.getStatusCode().is5xxServerError() || response.getStatusCode().value() == 429;
+    } catch (IOException e) {
+      return true;
+    }
+  }
+}
@@ -0,0 +1,40 @@
+package com.hortifruti.sl.hortifruti.config.http;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decodificação das respostas JSON dos provedores externos em records tipados.
+ *
+ * <p>Usa uma cópia do {@link ObjectMapper} da aplicação que ignora campos desconhecidos: o parser
+ * de streaming do Jackson preenche apenas os campos declarados no record e pula o restante do
+ * payload sem montar árvore de {@code JsonNode}. Os leitores são imutáveis e compartilhados entre
+ * threads.
+ */
+@Component
+public class ProviderJsonCodec {
+  private final ObjectMapper mapper;
+
+  public ProviderJsonCodec(ObjectMapper objectMapper) {
+    this.mapper =
+        objectMapper
+            .copy()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+  }
+
+  public <T> T read(byte[] json, Class<T> type) throws IOException {
+    return mapper.readerFor(type).readValue(json);
+  }
+
+  public <T> T read(byte[] json, TypeReference<T> type) throws IOException {
+    return mapper.readerFor(type).readValue(json);
+  }
+
+  public <T> T read(String json, Class<T> type) throws IOException {
+    return mapper.readerFor(type).readValue(json);
+  }
+}
@@ -0,0 +1,117 @@
+package com.hortifruti.sl.hortifruti.config.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hortifruti.sl.hortifruti.dto.billet.BilletJob;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+/**
+ * Canal {@code /ws/billet-jobs}: envia a situação das emissões assíncronas de boleto, assim que
+ * elas mudam, apenas às sessões de quem as solicitou. O canal é só de saída; mensagens recebidas
+ * são ignoradas.
+ *
+ * <p>O token é validado só no handshake, então cada sessão é encerrada quando ele expira.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BilletJobSocketHandler extends TextWebSocketHandler {
+  /** Atributos da sessão preenchidos no handshake ({@link WebSocketConfig}). */
+  static final String USERNAME = "username";
+
+  static final String EXPIRES_AT = "expiresAt";
+
+  private static final int SEND_TIME_LIMIT_MS = 5_000;
+  private static final int BUFFER_SIZE_LIMIT = 64 * 1024;
+  private static final CloseStatus TOKEN_EXPIRED =
+      CloseStatus.POLICY_VIOLATION.withReason("Token expirado");
+
+  private final ObjectMapper objectMapper;
+
+  /** Sessões abertas, pelo ID. */
+  private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+
+  @Override
+  public void afterConnectionEstablished(WebSocketSession session) {
+    // O decorator serializa os envios, que partem das threads de emissão
+    sessions.put(
+        session.getId(),
+        new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT_MS, BUFFER_SIZE_LIMIT));
+  }
+
+  @Override
+  public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+    sessions.remove(session.getId());
+  }
+
+  /**
+   * Envia a situação da emissão às sessões abertas dos usuários informados.
+   *
+   * @param usernames Usuários que solicitaram a emissão
+   * @param job Situação atual da emissão
+   */
+  public void send(Collection<String> usernames, BilletJob job) {
+    if (sessions.isEmpty() || usernames.isEmpty()) {
+      return;
+    }
+    TextMessage message;
+    try {
+      message = new TextMessage(objectMapper.writeValueAsString(job));
+    } catch (IOException e) {
+      log.warn("Não foi possível serializar a emissão {}: {}", job.jobId(), e.getMessage());
+      return;
+    }
+    for (WebSocketSession session : sessions.values()) {
+      if (!usernames.contains(session.getAttributes().get(USERNAME))) {
+        continue;
+      }
+      if (isExpired(session)) {
+        close(session);
+        continue;
+      }
+      try {
+        if (session.isOpen()) {
+          session.sendMessage(message);
+        }
+      } catch (IOException | IllegalStateException e) {
+        log.debug("Falha ao notificar a sessão {}: {}", session.getId(), e.getMessage());
+      }
+    }
+  }
+
+  /** Encerra as sessões cujo token expirou, mesmo sem emissões em andamento. */
+  @Scheduled(fixedDelay = 60_000) // 1 minuto
+  public void closeExpiredSessions() {
+    for (WebSocketSession session : sessions.values()) {
+      if (isExpired(session)) {
+        close(session);
+      }
+    }
+  }
+
+  private boolean isExpired(WebSocketSession session) {
+    return !(session.getAttributes().get(EXPIRES_AT) instanceof Instant expiresAt)
+        || !expiresAt.isAfter(Instant.now());
+  }
+
+  private void close(WebSocketSession session) {
+    sessions.remove(session.getId());
+    try {
+      session.close(TOKEN_EXPIRED);
+    } catch (IOException e) {
+      log.debug("Falha ao encerrar a sessão {}: {}", session.getId(), e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package com.hortifruti.sl.hortifruti.config.websocket;
+
+import com.hortifruti.sl.hortifruti.config.auth.TokenConfiguration;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Registro dos canais WebSocket. Navegadores não enviam o cabeçalho Authorization no handshake,
+ * então o token JWT vem no parâmetro {@code token} e é validado aqui.
+ */
+@Configuration
+@EnableWebSocket
+@RequiredArgsConstructor
+public class WebSocketConfig implements WebSocketConfigurer {
+  private final BilletJobSocketHandler billetJobSocketHandler;
+  private final TokenConfiguration tokenConfiguration;
+
+  @Value("${frontend.url}")
+  private String frontendUrl;
+
+  @Override
+  public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+    registry
+        .addHandler(billetJobSocketHandler, "/ws/billet-jobs")
+        .addInterceptors(new TokenHandshakeInterceptor())
+        .setAllowedOrigins(frontendUrl);
+  }
+
+  private class TokenHandshakeInterceptor implements HandshakeInterceptor {
+    @Override
+    public boolean beforeHandshake(
+        ServerHttpRequest request,
+        ServerHttpResponse response,
+        WebSocketHandler wsHandler,
+        Map<String, Object> attributes) {
+      String token =
+          UriComponentsBuilder.fromUri(request.getURI()).build().getQueryParams().getFirst("token");
+      try {
+        attributes.put(BilletJobSocketHandler.USERNAME, tokenConfiguration.validateToken(token));
+        attributes.put(
+            BilletJobSocketHandler.EXPIRES_AT, tokenConfiguration.getExpirationFromToken(token));
+        return true;
+      } catch (RuntimeException e) {
+        response.setStatusCode(HttpStatus.FORBIDDEN);
+        return false;
+      }
+    }
+
+    @Override
+    public void afterHandshake(
+        ServerHttpRequest request,
+        ServerHttpResponse response,
+        WebSocketHandler wsHandler,
+        Exception exception) {}
+  }
+}
@@ -1,14 +1,24 @@
 package com.hortifruti.sl.hortifruti.controller;
 
+import com.hortifruti.sl.hortifruti.dto.billet.BilletJob;
 import com.hortifruti.sl.hortifruti.dto.billet.BilletResponse;
+import com.hortifruti.sl.hortifruti.dto.billet.BulkBilletRequest;
 import com.hortifruti.sl.hortifruti.exception.BilletException;
+import com.hortifruti.sl.hortifruti.exception.IssuanceInProgressException;
 import com.hortifruti.sl.hortifruti.service.billet.BilletService;
+import jakarta.validation.Valid;
 import java.io.IOException;
+import java.net.URI;
+import java.security.Principal;
 import java.util.List;
 import lombok.AllArgsConstructor;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/billet")
@@ -28,6 +38,8 @@ public class BilletController {
       throws IOException {
     try {
       return billetService.generateBillet(combinedScoreId, number);
+    } catch (IssuanceInProgressException e) {
+      throw e;
     } catch (Exception e) {
       e.printStackTrace();
       return ResponseEntity.badRequest()
@@ -35,6 +47,73 @@ public class BilletController {
     }
   }
 
+  /**
+   * Enfileira a emissão de um boleto e retorna na hora com o ID da emissão. A conclusão é
+   * notificada pelo canal WebSocket {@code /ws/billet-jobs}.
+   *
+   * @param combinedScoreId ID do CombinedScore.
+   * @param number Número identificador do boleto.
+   * @return Emissão enfileirada (202), com o endereço de consulta no cabeçalho Location.
+   */
+  @PostMapping("/async/{combinedScoreId}")
+  public ResponseEntity<BilletJob> generateBilletAsync(
+      @PathVariable Long combinedScoreId,
+      @RequestParam(required = false) String number,
+      Principal principal) {
+    BilletJob job = billetService.generateBilletAsync(combinedScoreId, number, principal.getName());
+    return ResponseEntity.accepted()
+        .location(URI.create("/billet/async/jobs/" + job.jobId()))
+        .body(job);
+  }
+
+  /**
+   * Consulta a situação de uma emissão assíncrona.
+   *
+   * @param jobId ID da emissão.
+   * @return Situação da emissão, ou 404 se ela não existir ou já tiver expirado.
+   */
+  @GetMapping("/async/jobs/{jobId}")
+  public ResponseEntity<BilletJob> getBilletJob(@PathVariable String jobId) {
+    return ResponseEntity.of(billetService.findBilletJob(jobId));
+  }
+
+  /**
+   * Baixa o PDF de uma emissão assíncrona concluída.
+   *
+   * @param jobId ID da emissão.
+   * @return PDF do boleto; 202 com Retry-After enquanto a emissão não termina.
+   */
+  @GetMapping("/async/jobs/{jobId}/pdf")
+  public ResponseEntity<Resource> getBilletJobPdf(@PathVariable String jobId) throws IOException {
+    BilletJob job = billetService.findBilletJob(jobId).orElse(null);
+    if (job == null) {
+      return ResponseEntity.notFound().build();
+    }
+    if (job.status() == BilletJob.Status.FALHOU) {
+      throw new BilletException("A emissão do boleto falhou: " + job.message());
+    }
+    if (job.status() != BilletJob.Status.CONCLUIDO) {
+      return ResponseEntity.accepted().header(HttpHeaders.RETRY_AFTER, "2").build();
+    }
+    return billetService.openCopy(job.combinedScoreId());
+  }
+
+  /**
+   * Emite boletos para vários agrupamentos de uma vez. Agrupamentos que já possuem boleto entram no
+   * ZIP com a segunda via, sem nova emissão.
+   *
+   * @param request Agrupamentos e, opcionalmente, o seu número de cada boleto.
+   * @return ZIP com os PDFs e o arquivo resumo.csv com o resultado de cada agrupamento.
+   */
+  @PostMapping("/bulk")
+  public ResponseEntity<StreamingResponseBody> generateBillets(
+      @Valid @RequestBody BulkBilletRequest request) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.parseMediaType("application/zip"));
+    headers.setContentDispositionFormData("attachment", "boletos.zip");
+    return ResponseEntity.ok().headers(headers).body(billetService.generateBillets(request));
+  }
+
   /**
    * Lista boletos de um pagador específico.
    *
@@ -59,9 +138,9 @@ public class BilletController {
    * @return PDF do boleto emitido.
    */
   @GetMapping("/issue-copy/{idCombinedScore}")
-  public ResponseEntity<byte[]> issueCopy(@PathVariable Long idCombinedScore) {
+  public ResponseEntity<Resource> issueCopy(@PathVariable Long idCombinedScore) {
     try {
-      return billetService.issueCopy(idCombinedScore);
+      return billetService.openCopy(idCombinedScore);
     } catch (Exception e) {
       e.printStackTrace();
       return ResponseEntity.badRequest().body(null);
@@ -9,6 +9,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @AllArgsConstructor
@@ -17,13 +18,11 @@ public class ReportTaxController {
   private final ReportTaxService reportTaxService;
 
   @GetMapping("/icms-report/monthly/{start}/{end}")
-  public ResponseEntity<byte[]> generateMonthlyReports(
+  public ResponseEntity<StreamingResponseBody> generateMonthlyReports(
       @PathVariable LocalDate start, @PathVariable LocalDate end) {
-
-    byte[] zipBytes = reportTaxService.generateMonthly(start, end);
     return ResponseEntity.ok()
         .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"relatorios_mensais.zip\"")
         .contentType(MediaType.APPLICATION_OCTET_STREAM)
-        .body(zipBytes);
+        .body(reportTaxService.generateMonthly(start, end));
   }
 }
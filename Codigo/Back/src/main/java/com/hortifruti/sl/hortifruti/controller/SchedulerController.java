@@ -1,8 +1,11 @@
 package com.hortifruti.sl.hortifruti.controller;
 
+import com.hortifruti.sl.hortifruti.service.cache.EntityCacheService;
 import com.hortifruti.sl.hortifruti.service.scheduler.ApiTokenService;
 import com.hortifruti.sl.hortifruti.service.scheduler.CombinedScoreSchedulerService;
 import com.hortifruti.sl.hortifruti.service.scheduler.DatabaseStorageSchedulerService;
+import com.hortifruti.sl.hortifruti.service.scheduler.InvoiceSnapshotSchedulerService;
+import com.hortifruti.sl.hortifruti.service.scheduler.TotalDriftSchedulerService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -10,6 +13,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -19,6 +23,9 @@ public class SchedulerController {
 
   private final CombinedScoreSchedulerService combinedScoreSchedulerService;
   private final DatabaseStorageSchedulerService databaseStorageSchedulerService;
+  private final TotalDriftSchedulerService totalDriftSchedulerService;
+  private final EntityCacheService entityCacheService;
+  private final InvoiceSnapshotSchedulerService invoiceSnapshotSchedulerService;
   private final ApiTokenService apiTokenService;
 
   /**
@@ -69,6 +76,71 @@ public class SchedulerController {
         "Verificação de armazenamento do banco de dados iniciada com sucesso.");
   }
 
+  /**
+   * Endpoint para executar a verificação de divergência entre os totais das compras e agrupamentos
+   * e a soma dos seus produtos. Requer token de autenticação específico para APIs programáticas.
+   */
+  @PostMapping("/check-total-drift")
+  public ResponseEntity<String> checkTotalDrift(
+      @RequestHeader(value = "Authorization", required = false) String authHeader) {
+    if (!isValidToken(authHeader)) {
+      return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+          .body("Token de autenticação inválido ou não fornecido");
+    }
+
+    int drifted = totalDriftSchedulerService.checkTotalDrift();
+    return ResponseEntity.ok(
+        "Verificação de totais concluída. Totais divergentes corrigidos: " + drifted + ".");
+  }
+
+  /**
+   * Endpoint para gravar a cópia local das NF-e autorizadas que ainda não a têm. Consulta no máximo
+   * {@code limit} notas na Focus NFe. Requer token de autenticação específico para APIs
+   * programáticas.
+   */
+  @PostMapping("/invoice-snapshots/backfill")
+  public ResponseEntity<String> backfillInvoiceSnapshots(
+      @RequestHeader(value = "Authorization", required = false) String authHeader,
+      @RequestParam(defaultValue = "" + InvoiceSnapshotSchedulerService.DEFAULT_BATCH_SIZE)
+          int limit) {
+    if (!isValidToken(authHeader)) {
+      return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+          .body("Token de autenticação inválido ou não fornecido");
+    }
+
+    int stored = invoiceSnapshotSchedulerService.backfill(limit);
+    return ResponseEntity.ok("Cópia local de NF-e concluída. Notas gravadas: " + stored + ".");
+  }
+
+  /**
+   * Endpoint para invalidar o cache de segundo nível. Sem parâmetros, invalida todo o cache; com
+   * {@code entity} (e opcionalmente {@code id}), invalida apenas aquela entidade. Permite que outra
+   * instância ou uma alteração feita direto no banco invalide o cache desta instância. Requer token
+   * de autenticação específico para APIs programáticas.
+   */
+  @PostMapping("/cache/evict")
+  public ResponseEntity<String> evictEntityCache(
+      @RequestHeader(value = "Authorization", required = false) String authHeader,
+      @RequestParam(required = false) String entity,
+      @RequestParam(required = false) Long id) {
+    if (!isValidToken(authHeader)) {
+      return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+          .body("Token de autenticação inválido ou não fornecido");
+    }
+
+    if (entity == null) {
+      entityCacheService.evictAll();
+      return ResponseEntity.ok("Cache de segundo nível invalidado por completo.");
+    }
+
+    try {
+      entityCacheService.evict(entity, id);
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().body(e.getMessage());
+    }
+    return ResponseEntity.ok("Cache de segundo nível invalidado para " + entity + ".");
+  }
+
   /**
    * Método auxiliar para validar o token de autenticação. Extrai o token do header "Authorization"
    * (remove o prefixo "Bearer ").
@@ -1,5 +1,6 @@
 package com.hortifruti.sl.hortifruti.controller.purchase;
 
+import com.hortifruti.sl.hortifruti.dto.purchase.client.ClientMonthlySummary;
 import com.hortifruti.sl.hortifruti.dto.purchase.client.ClientRequest;
 import com.hortifruti.sl.hortifruti.dto.purchase.client.ClientResponse;
 import com.hortifruti.sl.hortifruti.dto.purchase.client.ClientSelectionInfo;
@@ -67,6 +68,11 @@ public class ClientController {
     return clientService.getClientSummary(id);
   }
 
+  @GetMapping("/{id}/summary/monthly")
+  public ResponseEntity<List<ClientMonthlySummary>> getClientMonthlySummary(@PathVariable Long id) {
+    return ResponseEntity.ok(clientService.getClientMonthlySummary(id));
+  }
+
   @GetMapping("/for-selection")
   public ResponseEntity<List<ClientSelectionInfo>> getAllClientsForSelection() {
     List<ClientSelectionInfo> clients = clientService.getAllClientsForSelection();
@@ -1,11 +1,16 @@
 package com.hortifruti.sl.hortifruti.controller.purchase;
 
+import com.hortifruti.sl.hortifruti.dto.purchase.CombinedScoreBatchRequest;
+import com.hortifruti.sl.hortifruti.dto.purchase.CombinedScoreBatchResponse;
 import com.hortifruti.sl.hortifruti.dto.purchase.CombinedScoreRequest;
 import com.hortifruti.sl.hortifruti.dto.purchase.CombinedScoreResponse;
 import com.hortifruti.sl.hortifruti.dto.purchase.GroupedProductResponse;
+import com.hortifruti.sl.hortifruti.dto.purchase.UpdateGroupedProduct;
+import com.hortifruti.sl.hortifruti.service.purchase.CombinedScoreBatchService;
 import com.hortifruti.sl.hortifruti.service.purchase.CombinedScoreService;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.net.URI;
 import java.util.List;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -25,6 +30,7 @@ import org.springframework.web.bind.annotation.*;
 public class CombinedScoreController {
 
   private final CombinedScoreService combinedScoreService;
+  private final CombinedScoreBatchService combinedScoreBatchService;
 
   /** Cria um novo agrupamento de compras. */
   @PostMapping("/create")
@@ -33,6 +39,26 @@ public class CombinedScoreController {
     return ResponseEntity.ok("Agrupamento criado com sucesso.");
   }
 
+  /**
+   * Inicia em segundo plano a geração dos agrupamentos do período para todos os clientes com
+   * compras. Se um lote anterior do mesmo período foi interrompido, ele é retomado. O andamento é
+   * consultado em {@code /batch/{id}}.
+   */
+  @PostMapping("/batch")
+  public ResponseEntity<CombinedScoreBatchResponse> createCombinedScoresBatch(
+      @Valid @RequestBody CombinedScoreBatchRequest request) {
+    CombinedScoreBatchResponse batch = combinedScoreBatchService.generateForPeriod(request);
+    return ResponseEntity.accepted()
+        .location(URI.create("/combined-scores/batch/" + batch.id()))
+        .body(batch);
+  }
+
+  /** Consulta o andamento e os totais por cliente de um lote de agrupamentos. */
+  @GetMapping("/batch/{id}")
+  public ResponseEntity<CombinedScoreBatchResponse> getCombinedScoresBatch(@PathVariable Long id) {
+    return ResponseEntity.ok(combinedScoreBatchService.getBatch(id));
+  }
+
   /** Lista os agrupamentos de compras, com suporte a paginação. */
   @GetMapping
   public ResponseEntity<Page<CombinedScoreResponse>> listGroupings(
@@ -66,6 +92,13 @@ public class CombinedScoreController {
     return ResponseEntity.ok("Pagamento cancelado com sucesso.");
   }
 
+  /** Edita um produto agrupado e ajusta o valor total do seu agrupamento. */
+  @PutMapping("/grouped-products/{id}")
+  public ResponseEntity<GroupedProductResponse> updateGroupedProduct(
+      @PathVariable Long id, @Valid @RequestBody UpdateGroupedProduct dto) {
+    return ResponseEntity.ok(combinedScoreService.updateGroupedProduct(id, dto));
+  }
+
   /** Lista os produtos agrupados associados a um CombinedScore pelo ID. */
   @GetMapping("/{id}/grouped-products")
   public ResponseEntity<List<GroupedProductResponse>> getGroupedProductsByCombinedScoreId(
@@ -0,0 +1,44 @@
+package com.hortifruti.sl.hortifruti.dto.billet;
+
+import java.time.LocalDateTime;
+
+/** Situação de uma emissão assíncrona de boleto. */
+public record BilletJob(
+    String jobId,
+    Long combinedScoreId,
+    Status status,
+    String ourNumber,
+    String yourNumber,
+    String message,
+    LocalDateTime createdAt,
+    LocalDateTime finishedAt) {
+
+  public enum Status {
+    PENDENTE,
+    PROCESSANDO,
+    CONCLUIDO,
+    FALHOU
+  }
+
+  public BilletJob processing() {
+    return new BilletJob(
+        jobId, combinedScoreId, Status.PROCESSANDO, null, null, null, createdAt, null);
+  }
+
+  public BilletJob completed(IssuedBillet billet) {
+    return new BilletJob(
+        jobId,
+        combinedScoreId,
+        Status.CONCLUIDO,
+        billet.nossoNumero(),
+        billet.seuNumero(),
+        null,
+        createdAt,
+        LocalDateTime.now());
+  }
+
+  public BilletJob failed(String error) {
+    return new BilletJob(
+        jobId, combinedScoreId, Status.FALHOU, null, null, error, createdAt, LocalDateTime.now());
+  }
+}
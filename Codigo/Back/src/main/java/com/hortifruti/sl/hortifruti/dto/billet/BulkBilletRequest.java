@@ -0,0 +1,21 @@
+package com.hortifruti.sl.hortifruti.dto.billet;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public record BulkBilletRequest(
+    @NotEmpty(message = "Informe ao menos um agrupamento")
+        @Size(max = 500, message = "No máximo 500 agrupamentos por lote")
+        List<@Valid Item> items) {
+
+  /**
+   * @param combinedScoreId ID do CombinedScore
+   * @param number Seu número do boleto; se vazio, usa o ID do agrupamento
+   */
+  public record Item(
+      @NotNull(message = "O ID do agrupamento é obrigatório") Long combinedScoreId,
+      String number) {}
+}
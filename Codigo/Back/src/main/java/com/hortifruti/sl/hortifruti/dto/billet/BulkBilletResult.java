@@ -0,0 +1,12 @@
+package com.hortifruti.sl.hortifruti.dto.billet;
+
+/** Resultado da emissão de um boleto dentro de um lote. */
+public record BulkBilletResult(
+    Long combinedScoreId, String yourNumber, String ourNumber, Status status, String message) {
+
+  public enum Status {
+    EMITIDO,
+    JA_EMITIDO,
+    FALHOU
+  }
+}
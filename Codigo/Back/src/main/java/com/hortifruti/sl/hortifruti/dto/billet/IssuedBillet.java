@@ -0,0 +1,9 @@
+package com.hortifruti.sl.hortifruti.dto.billet;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Boleto emitido no Sicoob. O PDF não é gravado na chave de idempotência: em uma requisição
+ * repetida ele vem nulo e é obtido do armazenamento local.
+ */
+public record IssuedBillet(String nossoNumero, String seuNumero, @JsonIgnore byte[] pdf) {}
@@ -0,0 +1,17 @@
+package com.hortifruti.sl.hortifruti.dto.billet;
+
+import java.math.BigDecimal;
+
+/** Campos lidos de um boleto retornado pelo Sicoob; os demais são ignorados na decodificação. */
+public record SicoobBillet(
+    Payer pagador,
+    String dataEmissao,
+    String dataVencimento,
+    String seuNumero,
+    String nossoNumero,
+    String situacaoBoleto,
+    BigDecimal valor,
+    String pdfBoleto) {
+
+  public record Payer(String nome) {}
+}
@@ -0,0 +1,4 @@
+package com.hortifruti.sl.hortifruti.dto.billet;
+
+/** Envelope das respostas da API de cobrança do Sicoob. */
+public record SicoobResponse<T>(T resultado) {}
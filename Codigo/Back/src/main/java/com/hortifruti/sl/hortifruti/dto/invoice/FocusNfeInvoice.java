@@ -0,0 +1,32 @@
+package com.hortifruti.sl.hortifruti.dto.invoice;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+
+/**
+ * Campos lidos da consulta de NF-e na Focus NFe; os demais são ignorados na decodificação. Os
+ * valores monetários ficam como texto, no formato devolvido pela API.
+ */
+public record FocusNfeInvoice(
+    @JsonProperty("status") String status,
+    @JsonProperty("ref") String ref,
+    @JsonProperty("numero") String numero,
+    @JsonProperty("caminho_danfe") String caminhoDanfe,
+    @JsonProperty("caminho_xml_nota_fiscal") String caminhoXmlNotaFiscal,
+    @JsonProperty("requisicao_nota_fiscal") Request requisicaoNotaFiscal) {
+
+  public record Request(
+      @JsonProperty("data_emissao") String dataEmissao,
+      @JsonProperty("cnpj_destinatario") String cnpjDestinatario,
+      @JsonProperty("numero") String numero,
+      @JsonProperty("valor_produtos") String valorProdutos,
+      @JsonProperty("valor_total") String valorTotal,
+      @JsonProperty("icms_base_calculo") String icmsBaseCalculo,
+      @JsonProperty("icms_valor_total") String icmsValorTotal,
+      @JsonProperty("itens") List<Item> itens) {}
+
+  public record Item(
+      @JsonProperty("cfop") String cfop,
+      @JsonProperty("valor_bruto") String valorBruto,
+      @JsonProperty("icms_situacao_tributaria") String icmsSituacaoTributaria) {}
+}
@@ -0,0 +1,36 @@
+package com.hortifruti.sl.hortifruti.dto.invoice;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+/**
+ * Trecho do download em streaming dos XMLs de várias notas: um pedaço do corpo, o fim do XML ou a
+ * falha de uma referência. Os trechos de cada referência chegam juntos e na ordem pedida.
+ */
+public record XmlPart(String ref, Kind kind, DataBuffer data, String error) {
+
+  public enum Kind {
+    DADOS,
+    FIM,
+    FALHA
+  }
+
+  public static XmlPart data(String ref, DataBuffer data) {
+    return new XmlPart(ref, Kind.DADOS, data, null);
+  }
+
+  public static XmlPart end(String ref) {
+    return new XmlPart(ref, Kind.FIM, null, null);
+  }
+
+  public static XmlPart failed(String ref, String error) {
+    return new XmlPart(ref, Kind.FALHA, null, error);
+  }
+
+  /** Devolve o buffer ao pool; trechos descartados precisam passar por aqui. */
+  public void release() {
+    if (data != null) {
+      DataBufferUtils.release(data);
+    }
+  }
+}
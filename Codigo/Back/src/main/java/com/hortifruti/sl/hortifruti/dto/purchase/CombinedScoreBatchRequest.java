@@ -0,0 +1,8 @@
+package com.hortifruti.sl.hortifruti.dto.purchase;
+
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+
+public record CombinedScoreBatchRequest(
+    @NotNull(message = "A data de início é obrigatória") LocalDateTime startDate,
+    @NotNull(message = "A data de término é obrigatória") LocalDateTime endDate) {}
@@ -0,0 +1,20 @@
+package com.hortifruti.sl.hortifruti.dto.purchase;
+
+import com.hortifruti.sl.hortifruti.model.enumeration.BatchStatus;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record CombinedScoreBatchResponse(
+    Long id,
+    LocalDateTime startDate,
+    LocalDateTime endDate,
+    BatchStatus status,
+    int processedClients,
+    BigDecimal totalValue,
+    String errorMessage,
+    List<ClientTotal> clients) {
+
+  public record ClientTotal(
+      Long clientId, String clientName, Long combinedScoreId, BigDecimal totalValue) {}
+}
@@ -1,5 +1,14 @@
 package com.hortifruti.sl.hortifruti.dto.purchase;
 
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
 import java.math.BigDecimal;
 
-public record UpdateGroupedProduct(String name, BigDecimal price, Integer quantity) {}
+public record UpdateGroupedProduct(
+    @NotBlank(message = "O nome do produto é obrigatório") String name,
+    @NotNull(message = "O preço é obrigatório") @Positive(message = "O preço deve ser positivo")
+        BigDecimal price,
+    @NotNull(message = "A quantidade é obrigatória")
+        @Positive(message = "A quantidade deve ser positiva")
+        Integer quantity) {}
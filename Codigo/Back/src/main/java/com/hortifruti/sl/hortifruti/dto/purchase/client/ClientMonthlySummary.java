@@ -0,0 +1,6 @@
+package com.hortifruti.sl.hortifruti.dto.purchase.client;
+
+import java.math.BigDecimal;
+
+public record ClientMonthlySummary(
+    Integer year, Integer month, Long totalProducts, BigDecimal totalValue) {}
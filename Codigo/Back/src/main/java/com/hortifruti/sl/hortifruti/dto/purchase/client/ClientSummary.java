@@ -1,4 +1,6 @@
 package com.hortifruti.sl.hortifruti.dto.purchase.client;
 
+import java.math.BigDecimal;
+
 public record ClientSummary(
-    String clientName, String clientAddress, int totalProducts, double totalValue) {}
+    String clientName, String clientAddress, long totalProducts, BigDecimal totalValue) {}
@@ -2,7 +2,9 @@ package com.hortifruti.sl.hortifruti.exception;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.HttpMediaTypeNotSupportedException;
@@ -136,6 +138,36 @@ public class GlobalExceptionHandler {
     return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
   }
 
+  @ExceptionHandler(ProviderUnavailableException.class)
+  public ResponseEntity<Map<String, String>> handleProviderUnavailableException(
+      ProviderUnavailableException ex) {
+    Map<String, String> response = new HashMap<>();
+    response.put("error", "Serviço Externo Indisponível");
+    response.put("message", ex.getMessage());
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+        .body(response);
+  }
+
+  /** Recusa rápida de provedor embrulhada em exceção de domínio, se houver. */
+  private Optional<ProviderUnavailableException> providerUnavailableCause(Throwable ex) {
+    for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+      if (cause instanceof ProviderUnavailableException unavailable) {
+        return Optional.of(unavailable);
+      }
+    }
+    return Optional.empty();
+  }
+
+  @ExceptionHandler(IssuanceInProgressException.class)
+  public ResponseEntity<Map<String, String>> handleIssuanceInProgressException(
+      IssuanceInProgressException ex) {
+    Map<String, String> response = new HashMap<>();
+    response.put("error", "Emissão em Andamento");
+    response.put("message", ex.getMessage());
+    return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+  }
+
   @ExceptionHandler(FreightException.class)
   public ResponseEntity<Map<String, String>> handleFreightException(FreightException ex) {
     Map<String, String> response = new HashMap<>();
@@ -154,6 +186,10 @@ public class GlobalExceptionHandler {
 
   @ExceptionHandler(BilletException.class)
   public ResponseEntity<Map<String, String>> handleBilletException(BilletException ex) {
+    Optional<ProviderUnavailableException> unavailable = providerUnavailableCause(ex);
+    if (unavailable.isPresent()) {
+      return handleProviderUnavailableException(unavailable.get());
+    }
     Map<String, String> response = new HashMap<>();
     response.put("error", "Erro na Integração com Sicoob");
     response.put("message", ex.getMessage());
@@ -205,6 +241,10 @@ public class GlobalExceptionHandler {
   @ExceptionHandler(NotificationException.class)
   public ResponseEntity<Map<String, String>> handleBulkNotificationException(
       NotificationException ex) {
+    Optional<ProviderUnavailableException> unavailable = providerUnavailableCause(ex);
+    if (unavailable.isPresent()) {
+      return handleProviderUnavailableException(unavailable.get());
+    }
     Map<String, String> response = new HashMap<>();
     response.put("error", "Erro de Notificação em Massa");
     response.put("message", ex.getMessage());
@@ -213,6 +253,10 @@ public class GlobalExceptionHandler {
 
   @ExceptionHandler(InvoiceException.class)
   public ResponseEntity<Map<String, String>> handleInvoiceException(InvoiceException ex) {
+    Optional<ProviderUnavailableException> unavailable = providerUnavailableCause(ex);
+    if (unavailable.isPresent()) {
+      return handleProviderUnavailableException(unavailable.get());
+    }
     Map<String, String> response = new HashMap<>();
     response.put("error", "Erro de Fatura");
     response.put("message", ex.getMessage());
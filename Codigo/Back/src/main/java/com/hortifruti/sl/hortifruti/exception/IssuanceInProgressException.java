@@ -0,0 +1,7 @@
+package com.hortifruti.sl.hortifruti.exception;
+
+public class IssuanceInProgressException extends RuntimeException {
+  public IssuanceInProgressException(String message) {
+    super(message);
+  }
+}
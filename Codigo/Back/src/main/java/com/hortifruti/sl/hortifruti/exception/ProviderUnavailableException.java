@@ -0,0 +1,16 @@
+package com.hortifruti.sl.hortifruti.exception;
+
+import lombok.Getter;
+
+/** Chamada a um provedor externo recusada sem ser feita: circuito aberto ou limite atingido. */
+@Getter
+public class ProviderUnavailableException extends RuntimeException {
+  private final String provider;
+  private final long retryAfterSeconds;
+
+  public ProviderUnavailableException(String provider, String message, long retryAfterSeconds) {
+    super(message);
+    this.provider = provider;
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+}
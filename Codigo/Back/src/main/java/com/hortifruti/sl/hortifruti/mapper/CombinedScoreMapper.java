@@ -14,6 +14,8 @@ public interface CombinedScoreMapper {
   @Mapping(target = "id", ignore = true) // ID será gerado automaticamente
   @Mapping(target = "confirmedAt", ignore = true) // Gerenciado pelo @PrePersist
   @Mapping(target = "totalValue", ignore = true) // Calculado automaticamente
+  @Mapping(target = "periodStart", source = "startDate")
+  @Mapping(target = "periodEnd", source = "endDate")
   CombinedScore toEntity(CombinedScoreRequest request);
 
   @Mapping(target = "id", source = "id")
@@ -0,0 +1,6 @@
+package com.hortifruti.sl.hortifruti.model.enumeration;
+
+public enum IssuanceOperation {
+  BOLETO,
+  NOTA_FISCAL
+}
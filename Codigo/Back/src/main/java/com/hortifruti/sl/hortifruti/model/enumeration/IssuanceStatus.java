@@ -0,0 +1,7 @@
+package com.hortifruti.sl.hortifruti.model.enumeration;
+
+public enum IssuanceStatus {
+  EM_ANDAMENTO,
+  CONCLUIDO,
+  FALHOU
+}
@@ -4,6 +4,7 @@ import com.hortifruti.sl.hortifruti.model.enumeration.Status;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import lombok.*;
 
@@ -51,6 +52,20 @@ public class CombinedScore {
   @Column(name = "invoice_ref", nullable = true)
   private String invoiceRef;
 
+  /** Última consulta da nota sem cópia local; as menos consultadas entram primeiro na cópia. */
+  @Column(name = "invoice_checked_at", nullable = true)
+  private LocalDateTime invoiceCheckedAt;
+
+  @Column(name = "batch_id", nullable = true)
+  private Long batchId;
+
+  /** Período das compras agrupadas; vazio nos agrupamentos anteriores a este registro. */
+  @Column(name = "period_start", nullable = true)
+  private LocalDateTime periodStart;
+
+  @Column(name = "period_end", nullable = true)
+  private LocalDateTime periodEnd;
+
   @OneToMany(mappedBy = "combinedScore", cascade = CascadeType.ALL, orphanRemoval = true)
   private List<GroupedProduct> groupedProducts;
 
@@ -0,0 +1,60 @@
+package com.hortifruti.sl.hortifruti.model.purchase;
+
+import com.hortifruti.sl.hortifruti.model.enumeration.BatchStatus;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import lombok.*;
+
+/**
+ * Execução da geração de agrupamentos em lote para um período. Guarda o último cliente processado
+ * para que uma execução interrompida possa ser retomada a partir do próximo bloco de clientes.
+ */
+@Entity
+@Table(name = "combined_score_batches")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CombinedScoreBatch {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "start_date", nullable = false)
+  private LocalDateTime startDate;
+
+  @Column(name = "end_date", nullable = false)
+  private LocalDateTime endDate;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "status", nullable = false, length = 20)
+  private BatchStatus status;
+
+  @Column(name = "last_client_id", nullable = false)
+  private Long lastClientId;
+
+  @Column(name = "processed_clients", nullable = false)
+  private int processedClients;
+
+  @Column(name = "error_message", length = 1000)
+  private String errorMessage;
+
+  @Column(name = "created_at", nullable = false, updatable = false)
+  private LocalDateTime createdAt;
+
+  @Column(name = "finished_at")
+  private LocalDateTime finishedAt;
+
+  @PrePersist
+  protected void onCreate() {
+    this.createdAt = LocalDateTime.now();
+    if (this.status == null) {
+      this.status = BatchStatus.EM_ANDAMENTO;
+    }
+    if (this.lastClientId == null) {
+      this.lastClientId = 0L;
+    }
+  }
+}
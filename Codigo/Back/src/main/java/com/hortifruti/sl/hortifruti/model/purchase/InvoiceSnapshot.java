@@ -0,0 +1,72 @@
+package com.hortifruti.sl.hortifruti.model.purchase;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import lombok.*;
+
+/**
+ * Cópia local de uma NF-e autorizada. Depois de autorizada a nota não muda, então relatórios,
+ * consultas e downloads leem daqui em vez de consultar a Focus NFe. O cabeçalho fica em colunas; a
+ * consulta completa (com os itens, CFOP e valores) fica em {@code content}, no formato da Focus.
+ */
+@Entity
+@Table(
+    name = "invoice_snapshots",
+    uniqueConstraints = @UniqueConstraint(name = "uk_invoice_snapshots_ref", columnNames = "ref"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InvoiceSnapshot {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "ref", nullable = false, length = 64)
+  private String ref;
+
+  @Column(name = "status", nullable = false, length = 30)
+  private String status;
+
+  @Column(name = "number", length = 20)
+  private String number;
+
+  @Column(name = "issued_at")
+  private LocalDateTime issuedAt;
+
+  @Column(name = "recipient_document", length = 20)
+  private String recipientDocument;
+
+  @Column(name = "products_value", precision = 15, scale = 2)
+  private BigDecimal productsValue;
+
+  @Column(name = "total_value", precision = 15, scale = 2)
+  private BigDecimal totalValue;
+
+  @Column(name = "icms_base", precision = 15, scale = 2)
+  private BigDecimal icmsBase;
+
+  @Column(name = "icms_value", precision = 15, scale = 2)
+  private BigDecimal icmsValue;
+
+  @Column(name = "xml_path", length = 500)
+  private String xmlPath;
+
+  @Column(name = "danfe_path", length = 500)
+  private String danfePath;
+
+  @Lob
+  @Column(name = "content", nullable = false, columnDefinition = "MEDIUMTEXT")
+  private String content;
+
+  @Column(name = "created_at", nullable = false, updatable = false)
+  private LocalDateTime createdAt;
+
+  @PrePersist
+  protected void onCreate() {
+    this.createdAt = LocalDateTime.now();
+  }
+}
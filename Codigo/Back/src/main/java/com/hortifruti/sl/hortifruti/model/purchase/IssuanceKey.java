@@ -0,0 +1,76 @@
+package com.hortifruti.sl.hortifruti.model.purchase;
+
+import com.hortifruti.sl.hortifruti.model.enumeration.IssuanceOperation;
+import com.hortifruti.sl.hortifruti.model.enumeration.IssuanceStatus;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import lombok.*;
+
+/**
+ * Chave de idempotência de uma emissão externa (boleto ou NF-e) de um agrupamento. Enquanto a
+ * emissão está em andamento a chave fica travada até {@code lockedUntil}; depois de concluída
+ * guarda a resposta, que é devolvida às requisições repetidas sem nova chamada ao provedor.
+ */
+@Entity
+@Table(
+    name = "issuance_keys",
+    uniqueConstraints =
+        @UniqueConstraint(
+            name = "uk_issuance_keys_score_operation",
+            columnNames = {"combined_score_id", "operation"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IssuanceKey {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "combined_score_id", nullable = false)
+  private Long combinedScoreId;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "operation", nullable = false, length = 20)
+  private IssuanceOperation operation;
+
+  /** Referência estável enviada ao provedor (ex.: {@code ref} da NF-e) em todas as tentativas. */
+  @Column(name = "reference", nullable = false, length = 64)
+  private String reference;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "status", nullable = false, length = 20)
+  private IssuanceStatus status;
+
+  @Column(name = "locked_until")
+  private LocalDateTime lockedUntil;
+
+  @Lob
+  @Column(name = "response", columnDefinition = "TEXT")
+  private String response;
+
+  @Column(name = "attempts", nullable = false)
+  private int attempts;
+
+  @Column(name = "error_message", length = 1000)
+  private String errorMessage;
+
+  @Column(name = "created_at", nullable = false, updatable = false)
+  private LocalDateTime createdAt;
+
+  @Column(name = "updated_at")
+  private LocalDateTime updatedAt;
+
+  @PrePersist
+  protected void onCreate() {
+    this.createdAt = LocalDateTime.now();
+    this.updatedAt = this.createdAt;
+  }
+
+  @PreUpdate
+  protected void onUpdate() {
+    this.updatedAt = LocalDateTime.now();
+  }
+}
@@ -2,15 +2,24 @@ package com.hortifruti.sl.hortifruti.repository;
 
 import com.hortifruti.sl.hortifruti.model.ClimateProduct;
 import com.hortifruti.sl.hortifruti.model.enumeration.TemperatureCategory;
+import jakarta.persistence.QueryHint;
 import java.util.List;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 /** Repository para operações com produtos */
 @Repository
 public interface ProductRepository extends JpaRepository<ClimateProduct, Long> {
 
+  /** Busca todos os produtos, com o resultado mantido no cache de consultas */
+  @Override
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+  List<ClimateProduct> findAll();
+
   /** Busca produtos por categoria de temperatura */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
   List<ClimateProduct> findByTemperatureCategory(TemperatureCategory category);
 
   /** Busca produtos por nome (busca parcial) */
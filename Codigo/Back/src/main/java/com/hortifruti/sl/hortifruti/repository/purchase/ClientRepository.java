@@ -1,8 +1,11 @@
 package com.hortifruti.sl.hortifruti.repository.purchase;
 
 import com.hortifruti.sl.hortifruti.model.purchase.Client;
+import jakarta.persistence.QueryHint;
 import java.util.Optional;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -11,5 +14,6 @@ public interface ClientRepository extends JpaRepository<Client, Long> {
 
   Optional<Client> findByClientName(String clientName);
 
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
   Optional<Client> findByDocument(String document);
 }
@@ -0,0 +1,13 @@
+package com.hortifruti.sl.hortifruti.repository.purchase;
+
+import com.hortifruti.sl.hortifruti.model.purchase.CombinedScoreBatch;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CombinedScoreBatchRepository extends JpaRepository<CombinedScoreBatch, Long> {
+  Optional<CombinedScoreBatch> findFirstByStartDateAndEndDateOrderByCreatedAtDesc(
+      LocalDateTime startDate, LocalDateTime endDate);
+}
@@ -1,12 +1,15 @@
 package com.hortifruti.sl.hortifruti.repository.purchase;
 
+import com.hortifruti.sl.hortifruti.model.enumeration.Status;
 import com.hortifruti.sl.hortifruti.model.purchase.CombinedScore;
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -41,6 +44,10 @@ public interface CombinedScoreRepository extends JpaRepository<CombinedScore, Lo
 
   Optional<CombinedScore> findByInvoiceRef(String invoiceRef);
 
+  /** Indica se o nosso número do Sicoob já está gravado em algum agrupamento */
+  @Query("SELECT COUNT(cs) > 0 FROM CombinedScore cs WHERE cs.ourNumber_sicoob = :ourNumber")
+  boolean existsByOurNumber(@Param("ourNumber") String ourNumber);
+
   /** Busca todas as refs de notas fiscais de um cliente específico */
   @Query(
       "SELECT cs.invoiceRef FROM CombinedScore cs WHERE cs.clientId = :clientId AND cs.hasInvoice = true AND cs.invoiceRef IS NOT NULL")
@@ -49,6 +56,29 @@ public interface CombinedScoreRepository extends JpaRepository<CombinedScore, Lo
   @Query("SELECT cs FROM CombinedScore cs WHERE cs.status = 'PENDENTE' AND cs.dueDate <= :date")
   List<CombinedScore> findOverduePendingScores(@Param("date") LocalDate date);
 
+  List<CombinedScore> findByBatchIdOrderByClientIdAsc(Long batchId);
+
+  /** Atualiza o status de vários agrupamentos em um único comando */
+  @Modifying
+  @Query("UPDATE CombinedScore cs SET cs.status = :status WHERE cs.id IN :ids")
+  int updateStatusByIds(@Param("ids") List<Long> ids, @Param("status") Status status);
+
+  /** Soma a diferença ao valor total do agrupamento sem recarregar os seus produtos */
+  @Modifying
+  @Query("UPDATE CombinedScore cs SET cs.totalValue = cs.totalValue + :delta WHERE cs.id = :id")
+  int addToTotalValue(@Param("id") Long id, @Param("delta") BigDecimal delta);
+
+  /** Agrupamentos cujo valor total difere da soma dos seus produtos agrupados */
+  @Query(
+      "SELECT cs.id FROM CombinedScore cs WHERE cs.totalValue <> (SELECT COALESCE(SUM(gp.totalValue), 0) FROM GroupedProduct gp WHERE gp.combinedScore.id = cs.id)")
+  List<Long> findIdsWithTotalValueDrift();
+
+  /** Atualiza o valor total dos agrupamentos a partir dos seus produtos agrupados */
+  @Modifying
+  @Query(
+      "UPDATE CombinedScore cs SET cs.totalValue = (SELECT COALESCE(SUM(gp.totalValue), 0) FROM GroupedProduct gp WHERE gp.combinedScore.id = cs.id) WHERE cs.id IN :ids")
+  int updateTotalValueFromGroupedProducts(@Param("ids") List<Long> ids);
+
   @Query(
       "SELECT cs FROM CombinedScore cs WHERE cs.hasInvoice = true AND cs.confirmedAt BETWEEN :startDate AND :endDate")
   List<CombinedScore> findByHasInvoiceTrueAndConfirmedAtBetween(
@@ -1,8 +1,72 @@
 package com.hortifruti.sl.hortifruti.repository.purchase;
 
 import com.hortifruti.sl.hortifruti.model.purchase.GroupedProduct;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface GroupedProductRepository extends JpaRepository<GroupedProduct, Long> {}
+public interface GroupedProductRepository extends JpaRepository<GroupedProduct, Long> {
+
+  /**
+   * Agrupa os produtos das compras de cada cliente no período por código, nome e preço unitário, e
+   * insere o resultado diretamente nos agrupamentos informados. Um produto vendido a mais de um
+   * preço no período gera uma linha por preço, para que o total do agrupamento seja sempre a soma
+   * exata das compras
+   */
+  @Modifying
+  @Query(
+      """
+      INSERT INTO GroupedProduct (code, name, price, quantity, totalValue, combinedScore)
+      SELECT ip.code, ip.name, ip.price, SUM(ip.quantity), ip.price * SUM(ip.quantity), cs
+      FROM InvoiceProduct ip JOIN ip.purchase p, CombinedScore cs
+      WHERE cs.id IN :combinedScoreIds
+        AND p.client.id = cs.clientId
+        AND p.purchaseDate BETWEEN :startDate AND :endDate
+      GROUP BY ip.code, ip.name, ip.price, cs
+      """)
+  int insertGroupedWithFixedPrice(
+      @Param("combinedScoreIds") List<Long> combinedScoreIds,
+      @Param("startDate") LocalDateTime startDate,
+      @Param("endDate") LocalDateTime endDate);
+
+  /**
+   * Agrupa os produtos das compras de cada cliente no período pelo código base (antes do primeiro
+   * "-") e nome, usando o preço médio ponderado pela quantidade (zero quando a quantidade somada é
+   * zero), e insere o resultado diretamente nos agrupamentos informados. O total é a soma exata das
+   * compras; o código gravado é o menor código completo do grupo, escolhido de forma determinística
+   * no lugar do código da primeira compra
+   */
+  @Modifying
+  @Query(
+      """
+      INSERT INTO GroupedProduct (code, name, price, quantity, totalValue, combinedScore)
+      SELECT MIN(ip.code), ip.name,
+             COALESCE(ROUND(SUM(ip.price * ip.quantity) / NULLIF(SUM(ip.quantity), 0), 4), 0),
+             SUM(ip.quantity), SUM(ip.price * ip.quantity), cs
+      FROM InvoiceProduct ip JOIN ip.purchase p, CombinedScore cs
+      WHERE cs.id IN :combinedScoreIds
+        AND p.client.id = cs.clientId
+        AND p.purchaseDate BETWEEN :startDate AND :endDate
+      GROUP BY
+        CASE
+          WHEN LOCATE('-', ip.code) > 0 THEN SUBSTRING(ip.code, 1, LOCATE('-', ip.code) - 1)
+          ELSE ip.code
+        END,
+        ip.name,
+        cs
+      """)
+  int insertGroupedWithVariablePrice(
+      @Param("combinedScoreIds") List<Long> combinedScoreIds,
+      @Param("startDate") LocalDateTime startDate,
+      @Param("endDate") LocalDateTime endDate);
+
+  @Query(
+      "SELECT COALESCE(SUM(gp.totalValue), 0) FROM GroupedProduct gp WHERE gp.combinedScore.id = :combinedScoreId")
+  BigDecimal sumTotalValueByCombinedScoreId(@Param("combinedScoreId") Long combinedScoreId);
+}
@@ -0,0 +1,39 @@
+package com.hortifruti.sl.hortifruti.repository.purchase;
+
+import com.hortifruti.sl.hortifruti.model.purchase.InvoiceSnapshot;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface InvoiceSnapshotRepository extends JpaRepository<InvoiceSnapshot, Long> {
+
+  Optional<InvoiceSnapshot> findByRef(String ref);
+
+  @Modifying
+  @Query("DELETE FROM InvoiceSnapshot s WHERE s.ref = :ref")
+  int deleteByRef(@Param("ref") String ref);
+
+  /**
+   * Referências de notas emitidas que ainda não têm cópia local. As nunca consultadas vêm antes,
+   * das mais recentes primeiro, e depois as consultadas há mais tempo, para que notas que não
+   * chegam a ser autorizadas não ocupem o lote de todas as execuções.
+   */
+  @Query(
+      "SELECT cs.invoiceRef FROM CombinedScore cs "
+          + "WHERE cs.hasInvoice = true AND cs.invoiceRef IS NOT NULL "
+          + "AND NOT EXISTS (SELECT 1 FROM InvoiceSnapshot s WHERE s.ref = cs.invoiceRef) "
+          + "ORDER BY cs.invoiceCheckedAt ASC NULLS FIRST, cs.id DESC")
+  List<String> findInvoiceRefsWithoutSnapshot(Pageable pageable);
+
+  /** Registra a consulta de uma nota que continua sem cópia local. */
+  @Modifying
+  @Query("UPDATE CombinedScore cs SET cs.invoiceCheckedAt = :checkedAt WHERE cs.invoiceRef = :ref")
+  int markInvoiceChecked(@Param("ref") String ref, @Param("checkedAt") LocalDateTime checkedAt);
+}
@@ -0,0 +1,32 @@
+package com.hortifruti.sl.hortifruti.repository.purchase;
+
+import com.hortifruti.sl.hortifruti.model.enumeration.IssuanceOperation;
+import com.hortifruti.sl.hortifruti.model.purchase.IssuanceKey;
+import jakarta.persistence.LockModeType;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface IssuanceKeyRepository extends JpaRepository<IssuanceKey, Long> {
+
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query(
+      "SELECT k FROM IssuanceKey k WHERE k.combinedScoreId = :combinedScoreId"
+          + " AND k.operation = :operation")
+  Optional<IssuanceKey> findForUpdate(
+      @Param("combinedScoreId") Long combinedScoreId,
+      @Param("operation") IssuanceOperation operation);
+
+  @Modifying
+  @Query(
+      "DELETE FROM IssuanceKey k WHERE k.combinedScoreId = :combinedScoreId"
+          + " AND k.operation = :operation")
+  void deleteByCombinedScoreIdAndOperation(
+      @Param("combinedScoreId") Long combinedScoreId,
+      @Param("operation") IssuanceOperation operation);
+}
@@ -1,12 +1,16 @@
 package com.hortifruti.sl.hortifruti.repository.purchase;
 
+import com.hortifruti.sl.hortifruti.dto.purchase.client.ClientMonthlySummary;
 import com.hortifruti.sl.hortifruti.model.purchase.Purchase;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -17,6 +21,9 @@ public interface PurchaseRepository extends JpaRepository<Purchase, Long> {
   List<Purchase> findByClientIdAndPurchaseDateBetween(
       Long clientId, LocalDateTime startDate, LocalDateTime endDate);
 
+  boolean existsByClientIdAndPurchaseDateBetween(
+      Long clientId, LocalDateTime startDate, LocalDateTime endDate);
+
   List<Purchase> findByClientId(Long clientId);
 
   void deleteByCreatedAtBefore(LocalDateTime dateTime);
@@ -35,4 +42,59 @@ public interface PurchaseRepository extends JpaRepository<Purchase, Long> {
       Pageable pageable);
 
   List<Purchase> findByCreatedAtBetween(LocalDateTime startDate, LocalDateTime endDate);
+
+  /** Soma a diferença ao total da compra sem recarregar os seus produtos */
+  @Modifying
+  @Query(
+      "UPDATE Purchase p SET p.total = p.total + :delta, p.updatedAt = :updatedAt WHERE p.id = :id")
+  int addToTotal(
+      @Param("id") Long id,
+      @Param("delta") BigDecimal delta,
+      @Param("updatedAt") LocalDateTime updatedAt);
+
+  /** Compras cujo total difere da soma dos valores dos seus produtos */
+  @Query(
+      """
+      SELECT p.id FROM Purchase p
+      WHERE p.total <> (
+          SELECT COALESCE(SUM(ip.price * ip.quantity), 0)
+          FROM InvoiceProduct ip
+          WHERE ip.purchase.id = p.id)
+      """)
+  List<Long> findIdsWithTotalDrift();
+
+  /**
+   * Próximo bloco de clientes, em ordem de ID, que possuem compras no período e ainda não têm
+   * agrupamento com período sobreposto a ele
+   */
+  @Query(
+      """
+      SELECT DISTINCT p.client.id
+      FROM Purchase p
+      WHERE p.purchaseDate BETWEEN :startDate AND :endDate
+        AND p.client.id > :afterClientId
+        AND NOT EXISTS (
+          SELECT 1 FROM CombinedScore cs
+          WHERE cs.clientId = p.client.id
+            AND cs.periodStart <= :endDate
+            AND cs.periodEnd >= :startDate)
+      ORDER BY p.client.id
+      """)
+  List<Long> findClientIdsWithPurchasesBetween(
+      @Param("startDate") LocalDateTime startDate,
+      @Param("endDate") LocalDateTime endDate,
+      @Param("afterClientId") Long afterClientId,
+      Pageable pageable);
+
+  /** Quantidade de produtos e valor total das compras de um cliente, agregados por mês */
+  @Query(
+      """
+      SELECT new com.hortifruti.sl.hortifruti.dto.purchase.client.ClientMonthlySummary(
+          YEAR(p.purchaseDate), MONTH(p.purchaseDate), SUM(SIZE(p.invoiceProducts)), SUM(p.total))
+      FROM Purchase p
+      WHERE p.client.id = :clientId
+      GROUP BY YEAR(p.purchaseDate), MONTH(p.purchaseDate)
+      ORDER BY YEAR(p.purchaseDate), MONTH(p.purchaseDate)
+      """)
+  List<ClientMonthlySummary> summarizeByMonth(@Param("clientId") Long clientId);
 }
@@ -0,0 +1,283 @@
+package com.hortifruti.sl.hortifruti.service.billet;
+
+import com.hortifruti.sl.hortifruti.dto.billet.BilletRequestSimplified;
+import com.hortifruti.sl.hortifruti.dto.billet.BulkBilletRequest;
+import com.hortifruti.sl.hortifruti.dto.billet.BulkBilletResult;
+import com.hortifruti.sl.hortifruti.dto.billet.IssuedBillet;
+import com.hortifruti.sl.hortifruti.dto.billet.Pagador;
+import com.hortifruti.sl.hortifruti.exception.BilletException;
+import com.hortifruti.sl.hortifruti.model.enumeration.IssuanceOperation;
+import com.hortifruti.sl.hortifruti.model.purchase.Client;
+import com.hortifruti.sl.hortifruti.model.purchase.CombinedScore;
+import com.hortifruti.sl.hortifruti.repository.purchase.CombinedScoreRepository;
+import com.hortifruti.sl.hortifruti.service.purchase.IssuanceIdempotency;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Emissão de boletos em lote. As chamadas ao Sicoob rodam com no máximo {@link #MAX_CONCURRENCY}
+ * emissões simultâneas e cada PDF é escrito no ZIP assim que fica pronto.
+ *
+ * <p>Agrupamentos que já possuem boleto não são emitidos de novo: o ZIP recebe a segunda via, de
+ * modo que repetir o mesmo lote é seguro. Cada emissão passa por {@link IssuanceIdempotency}, a
+ * mesma chave da emissão individual, então um agrupamento em emissão em outra requisição é
+ * recusado. Os dados dos boletos emitidos são gravados em uma única transação ao final, mesmo que o
+ * download seja interrompido.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BilletBulkIssue {
+  private static final int MAX_CONCURRENCY = 4;
+
+  private final CombinedScoreRepository combinedScoreRepository;
+  private final BilletFactory billetFactory;
+  private final BilletIssue billetIssue;
+  private final BilletQuery billetQuery;
+  private final BilletInfoCombinedAndClient billetInfoCombinedAndClient;
+  private final BilletListingCache billetListingCache;
+  private final TransactionTemplate transactionTemplate;
+  private final IssuanceIdempotency issuanceIdempotency;
+
+  /**
+   * Prepara a emissão do lote. O trabalho só começa quando o corpo da resposta é escrito.
+   *
+   * @param request Agrupamentos a emitir, com o seu número opcional de cada um
+   * @return Corpo da resposta que emite os boletos e escreve o ZIP
+   */
+  public StreamingResponseBody issue(BulkBilletRequest request) {
+    Map<Long, String> numbers = new LinkedHashMap<>();
+    for (BulkBilletRequest.Item item : request.items()) {
+      String number =
+          item.number() == null || item.number().isBlank()
+              ? String.valueOf(item.combinedScoreId())
+              : item.number().trim();
+      numbers.putIfAbsent(item.combinedScoreId(), number);
+    }
+
+    Map<Long, CombinedScore> scores =
+        combinedScoreRepository.findAllById(numbers.keySet()).stream()
+            .collect(Collectors.toMap(CombinedScore::getId, Function.identity()));
+    Map<Long, Client> clients =
+        billetInfoCombinedAndClient.findClientsByIds(
+            scores.values().stream().map(CombinedScore::getClientId).collect(Collectors.toSet()));
+
+    return outputStream -> writeZip(outputStream, numbers, scores, clients);
+  }
+
+  private void writeZip(
+      OutputStream outputStream,
+      Map<Long, String> numbers,
+      Map<Long, CombinedScore> scores,
+      Map<Long, Client> clients)
+      throws IOException {
+    List<BulkBilletResult> results = new ArrayList<>();
+    List<BulkBilletResult> issued = new ArrayList<>();
+
+    try (ExecutorService executor = Executors.newFixedThreadPool(MAX_CONCURRENCY);
+        ZipOutputStream zip = new ZipOutputStream(outputStream)) {
+      ExecutorCompletionService<IssuedPdf> completion = new ExecutorCompletionService<>(executor);
+      int submitted = 0;
+      int collected = 0;
+
+      for (Map.Entry<Long, String> entry : numbers.entrySet()) {
+        Long id = entry.getKey();
+        CombinedScore score = scores.get(id);
+        if (score == null) {
+          results.add(failed(id, entry.getValue(), "Agrupamento não encontrado."));
+        } else {
+          Client client = clients.get(score.getClientId());
+          completion.submit(() -> issueOne(score, client, entry.getValue()));
+          submitted++;
+        }
+      }
+
+      try {
+        for (int i = 0; i < submitted; i++) {
+          IssuedPdf pdf = takeResult(completion);
+          collected++;
+          results.add(pdf.result());
+          if (pdf.result().status() == BulkBilletResult.Status.EMITIDO) {
+            issued.add(pdf.result());
+          }
+          if (pdf.content() != null) {
+            zip.putNextEntry(
+                new ZipEntry(
+                    "BOL-"
+                        + pdf.result().yourNumber()
+                        + "_"
+                        + pdf.result().combinedScoreId()
+                        + ".pdf"));
+            zip.write(pdf.content());
+            zip.closeEntry();
+          }
+        }
+
+        zip.putNextEntry(new ZipEntry("resumo.csv"));
+        zip.write(toCsv(results).getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+      } finally {
+        // Aguarda as emissões restantes para que nenhum boleto fique sem registro
+        executor.shutdown();
+        drainRemaining(completion, submitted - collected, issued);
+        recordIssued(issued, scores);
+      }
+    }
+  }
+
+  private IssuedPdf issueOne(CombinedScore score, Client client, String number) {
+    try {
+      if (score.isHasBillet()) {
+        byte[] pdf = billetIssue.fetchCopyPdf(score.getOurNumber_sicoob());
+        return new IssuedPdf(
+            new BulkBilletResult(
+                score.getId(),
+                score.getYourNumber(),
+                score.getOurNumber_sicoob(),
+                BulkBilletResult.Status.JA_EMITIDO,
+                "Boleto já emitido; incluída a segunda via."),
+            pdf);
+      }
+      if (client == null) {
+        return new IssuedPdf(
+            failed(score.getId(), number, "Cliente do agrupamento não encontrado."), null);
+      }
+
+      // Uma emissão repetida devolve o boleto já emitido, ainda não gravado no agrupamento
+      IssuedBillet billet =
+          issuanceIdempotency.issue(
+              score.getId(),
+              IssuanceOperation.BOLETO,
+              IssuedBillet.class,
+              reference -> billetQuery.findUnrecordedBillet(score, client),
+              reference -> issueBillet(score, client, number));
+      byte[] pdf =
+          billet.pdf() != null ? billet.pdf() : billetIssue.fetchCopyPdf(billet.nossoNumero());
+
+      return new IssuedPdf(
+          new BulkBilletResult(
+              score.getId(),
+              billet.seuNumero(),
+              billet.nossoNumero(),
+              BulkBilletResult.Status.EMITIDO,
+              null),
+          pdf);
+    } catch (Exception e) {
+      log.warn("Falha ao emitir boleto do agrupamento {}: {}", score.getId(), e.getMessage());
+      return new IssuedPdf(failed(score.getId(), number, e.getMessage()), null);
+    }
+  }
+
+  private IssuedBillet issueBillet(CombinedScore score, Client client, String number)
+      throws IOException {
+    Pagador pagador = billetFactory.createPagadorFromClient(client);
+    BilletRequestSimplified billetRequest =
+        billetFactory.createBilletRequest(score, score.getId(), pagador, number);
+    Map<String, Object> responseBody = billetIssue.issueBillet(billetRequest).getBody();
+    if (responseBody == null) {
+      throw new BilletException("Erro ao processar a resposta da API: corpo vazio.");
+    }
+    return new IssuedBillet(
+        (String) responseBody.get("nossoNumero"),
+        (String) responseBody.get("seuNumero"),
+        (byte[]) responseBody.get("pdf"));
+  }
+
+  private IssuedPdf takeResult(ExecutorCompletionService<IssuedPdf> completion) throws IOException {
+    try {
+      return completion.take().get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Emissão em lote interrompida.", e);
+    } catch (ExecutionException e) {
+      throw new IOException("Erro inesperado na emissão em lote.", e.getCause());
+    }
+  }
+
+  /** Coleta as emissões que terminaram depois de uma falha ao escrever o ZIP. */
+  private void drainRemaining(
+      ExecutorCompletionService<IssuedPdf> completion,
+      int remaining,
+      List<BulkBilletResult> issued) {
+    for (int i = 0; i < remaining; i++) {
+      try {
+        BulkBilletResult result = completion.take().get().result();
+        if (result.status() == BulkBilletResult.Status.EMITIDO) {
+          issued.add(result);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (ExecutionException e) {
+        log.warn("Erro inesperado na emissão em lote: {}", e.getCause().getMessage());
+      }
+    }
+  }
+
+  private void recordIssued(List<BulkBilletResult> issued, Map<Long, CombinedScore> scores) {
+    if (issued.isEmpty()) {
+      return;
+    }
+    Map<Long, BulkBilletResult> byId =
+        issued.stream()
+            .collect(Collectors.toMap(BulkBilletResult::combinedScoreId, Function.identity()));
+
+    transactionTemplate.executeWithoutResult(
+        status -> {
+          for (CombinedScore score : combinedScoreRepository.findAllById(byId.keySet())) {
+            BulkBilletResult result = byId.get(score.getId());
+            score.setHasBillet(true);
+            score.setOurNumber_sicoob(result.ourNumber());
+            score.setYourNumber(result.yourNumber());
+          }
+        });
+
+    issued.stream()
+        .map(result -> scores.get(result.combinedScoreId()).getClientId())
+        .distinct()
+        .forEach(billetListingCache::invalidate);
+    log.info("Lote de boletos: {} emitidos e registrados.", issued.size());
+  }
+
+  private BulkBilletResult failed(Long id, String number, String message) {
+    return new BulkBilletResult(id, number, null, BulkBilletResult.Status.FALHOU, message);
+  }
+
+  private String toCsv(List<BulkBilletResult> results) {
+    StringBuilder csv = new StringBuilder("agrupamento;seu_numero;nosso_numero;status;mensagem\n");
+    for (BulkBilletResult result : results) {
+      csv.append(result.combinedScoreId())
+          .append(';')
+          .append(result.yourNumber() == null ? "" : result.yourNumber())
+          .append(';')
+          .append(result.ourNumber() == null ? "" : result.ourNumber())
+          .append(';')
+          .append(result.status())
+          .append(';')
+          .append(
+              result.message() == null ? "" : result.message().replace(';', ',').replace('\n', ' '))
+          .append('\n');
+    }
+    return csv.toString();
+  }
+
+  private record IssuedPdf(BulkBilletResult result, byte[] content) {}
+}
@@ -1,6 +1,5 @@
 package com.hortifruti.sl.hortifruti.service.billet;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.hortifruti.sl.hortifruti.config.billet.BilletHttpClient;
 import com.hortifruti.sl.hortifruti.exception.BilletException;
 import com.hortifruti.sl.hortifruti.model.purchase.CombinedScore;
@@ -10,6 +9,7 @@ import java.util.HashMap;
 import java.util.Map;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
@@ -24,6 +24,8 @@ public class BilletCancel {
   private final BilletConstants billetConstants;
   private final BilletValidation billetValidation;
   private final BilletInfoCombinedAndClient billetInfoCombinedAndClient;
+  private final BilletListingCache billetListingCache;
+  private final BilletPdfStore billetPdfStore;
 
   /**
    * Realiza a baixa (cancelamento) de um boleto através da API do Sicoob.
@@ -44,11 +46,14 @@ public class BilletCancel {
       String endpoint = buildCancelEndpoint(nossoNumero);
       Map<String, Object> requestBody = buildCancelRequestBody();
 
-      JsonNode response = httpClient.postCancel(endpoint, requestBody);
+      HttpStatusCode status = httpClient.postCancel(endpoint, requestBody);
+      billetListingCache.invalidate(combinedScore.getClientId());
+      billetPdfStore.evict(nossoNumero);
 
-      return handleCancelResponse(response, combinedScore);
+      return handleCancelResponse(status, combinedScore);
 
     } catch (HttpClientErrorException.BadRequest e) {
+      billetListingCache.invalidate(combinedScore.getClientId());
       return handleBadRequest(e);
     } catch (HttpClientErrorException e) {
       throw new BilletException(
@@ -77,8 +82,8 @@ public class BilletCancel {
 
   // Método auxiliar para tratar a resposta de cancelamento
   private ResponseEntity<String> handleCancelResponse(
-      JsonNode response, CombinedScore combinedScore) {
-    if (response == null) {
+      HttpStatusCode status, CombinedScore combinedScore) {
+    if (status.isSameCodeAs(HttpStatus.NO_CONTENT)) {
       combinedScoreService.updateStatusAfterBilletCancellation(combinedScore.getYourNumber());
       return ResponseEntity.noContent().build();
     }
@@ -6,6 +6,10 @@ import com.hortifruti.sl.hortifruti.model.purchase.Client;
 import com.hortifruti.sl.hortifruti.model.purchase.CombinedScore;
 import com.hortifruti.sl.hortifruti.repository.purchase.ClientRepository;
 import com.hortifruti.sl.hortifruti.repository.purchase.CombinedScoreRepository;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Component;
 
@@ -31,4 +35,10 @@ public class BilletInfoCombinedAndClient {
         .findById(clientId)
         .orElseThrow(() -> new BilletException("Cliente com ID " + clientId + " não encontrado."));
   }
+
+  // Método auxiliar para buscar vários Clients de uma vez, indexados pelo ID
+  protected Map<Long, Client> findClientsByIds(Collection<Long> clientIds) {
+    return clientRepository.findAllById(clientIds).stream()
+        .collect(Collectors.toMap(Client::getId, Function.identity()));
+  }
 }
@@ -1,16 +1,21 @@
 package com.hortifruti.sl.hortifruti.service.billet;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hortifruti.sl.hortifruti.config.billet.BilletHttpClient;
 import com.hortifruti.sl.hortifruti.dto.billet.BilletRequest;
 import com.hortifruti.sl.hortifruti.dto.billet.BilletRequestSimplified;
+import com.hortifruti.sl.hortifruti.dto.billet.SicoobBillet;
+import com.hortifruti.sl.hortifruti.dto.billet.SicoobResponse;
 import com.hortifruti.sl.hortifruti.exception.BilletException;
 import com.hortifruti.sl.hortifruti.model.purchase.CombinedScore;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
@@ -24,6 +29,7 @@ public class BilletIssue {
   private final BilletHttpClient httpClient;
   private final BilletValidation billetValidation;
   private final BilletInfoCombinedAndClient billetInfoCombinedAndClient;
+  private final BilletPdfStore billetPdfStore;
 
   /**
    * Emite um boleto através da API do Sicoob e retorna o PDF para download.
@@ -35,11 +41,13 @@ public class BilletIssue {
   protected ResponseEntity<Map<String, Object>> issueBillet(BilletRequestSimplified boleto)
       throws IOException {
     try {
-      JsonNode boletoJson = createBilletJson(boleto);
+      BilletRequest boletoCompleto = billetFactory.createCompleteBoletoRequest(boleto);
 
-      JsonNode resposta = httpClient.post(billetConstants.getBASE_URL() + "boletos", boletoJson);
+      SicoobResponse<SicoobBillet> resposta =
+          httpClient.post(
+              billetConstants.getBASE_URL() + "boletos", boletoCompleto, BilletHttpClient.BILLET);
 
-      JsonNode resultado = responseApi(resposta);
+      SicoobBillet resultado = responseApi(resposta);
 
       Map<String, Object> responseMap = createResponseMap(resultado);
 
@@ -70,17 +78,16 @@ public class BilletIssue {
     String endpoint = buildEndpointIssueCopy(nossoNumero);
 
     try {
-      JsonNode resposta = httpClient.get(endpoint);
-
-      if (resposta == null || resposta.isEmpty()) {
-        throw new BilletException("A resposta da API está vazia ou nula.");
+      Optional<byte[]> stored = billetPdfStore.findBytes(nossoNumero);
+      if (stored.isPresent()) {
+        return pdfCreate.createResponsePdf(stored.get(), copyFileName(nossoNumero));
       }
 
-      JsonNode resultado = responseApi(resposta);
-
-      String pdfBase64 = resultado.get("pdfBoleto").asText();
-
-      return pdfCreate.createResponsePdf(pdfBase64, "SEGUNDA-VIA-BOL-" + nossoNumero + ".pdf");
+      String pdfBase64 = fetchCopyBase64(endpoint);
+      ResponseEntity<byte[]> response =
+          pdfCreate.createResponsePdf(pdfBase64, copyFileName(nossoNumero));
+      billetPdfStore.put(nossoNumero, response.getBody());
+      return response;
 
     } catch (HttpClientErrorException.NotFound e) {
       throw new BilletException(
@@ -93,33 +100,79 @@ public class BilletIssue {
     }
   }
 
-  private JsonNode createBilletJson(BilletRequestSimplified boleto) {
-    BilletRequest boletoCompleto = billetFactory.createCompleteBoletoRequest(boleto);
-    ObjectMapper mapper = new ObjectMapper();
-    return mapper.valueToTree(boletoCompleto);
+  /**
+   * Devolve o PDF de um boleto já emitido em streaming, a partir do armazenamento local. O Sicoob
+   * só é consultado se o PDF ainda não estiver armazenado.
+   *
+   * @param idCombinedScore ID do CombinedScore
+   * @return Resposta HTTP com o PDF
+   * @throws IOException Se houver erro na comunicação ou no processamento da resposta
+   */
+  protected ResponseEntity<Resource> openCopy(Long idCombinedScore) throws IOException {
+    CombinedScore combinedScore =
+        billetInfoCombinedAndClient.findCombinedScoreById(idCombinedScore);
+    billetValidation.validateHasBillet(combinedScore);
+    String nossoNumero = combinedScore.getOurNumber_sicoob();
+
+    Resource pdf = billetPdfStore.find(nossoNumero).orElse(null);
+    if (pdf == null) {
+      pdf = new ByteArrayResource(fetchCopyPdf(nossoNumero));
+    }
+
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.APPLICATION_PDF);
+    headers.setContentDispositionFormData("attachment", copyFileName(nossoNumero));
+    return ResponseEntity.ok().headers(headers).body(pdf);
   }
 
-  private JsonNode responseApi(JsonNode resposta) {
-    if (resposta == null || resposta.isEmpty()) {
+  /**
+   * Obtém o PDF da segunda via de um boleto já emitido, consultando o Sicoob apenas se ele não
+   * estiver no armazenamento local.
+   *
+   * @param nossoNumero Número identificador do boleto no Sisbr
+   * @return Bytes do PDF
+   * @throws IOException Se houver erro na comunicação ou no processamento da resposta
+   */
+  protected byte[] fetchCopyPdf(String nossoNumero) throws IOException {
+    Optional<byte[]> stored = billetPdfStore.findBytes(nossoNumero);
+    if (stored.isPresent()) {
+      return stored.get();
+    }
+    try {
+      byte[] pdf =
+          pdfCreate.convertBase64ToBytes(fetchCopyBase64(buildEndpointIssueCopy(nossoNumero)));
+      billetPdfStore.put(nossoNumero, pdf);
+      return pdf;
+    } catch (HttpClientErrorException.NotFound e) {
+      throw new BilletException(
+          "Boleto não encontrado. Verifique o 'nossoNumero' e tente novamente.", e);
+    }
+  }
+
+  private String fetchCopyBase64(String endpoint) throws IOException {
+    return responseApi(httpClient.get(endpoint, BilletHttpClient.BILLET)).pdfBoleto();
+  }
+
+  private SicoobBillet responseApi(SicoobResponse<SicoobBillet> resposta) {
+    if (resposta == null) {
       throw new BilletException("A resposta da API está vazia ou nula.");
     }
 
-    JsonNode resultado = resposta.path("resultado");
-    if (!resultado.has("pdfBoleto")
-        || resultado.get("pdfBoleto").isNull()
-        || resultado.get("pdfBoleto").asText().trim().isEmpty()) {
+    SicoobBillet resultado = resposta.resultado();
+    if (resultado == null || resultado.pdfBoleto() == null || resultado.pdfBoleto().isBlank()) {
       throw new BilletException("PDF do boleto não encontrado na resposta.");
     }
 
     return resultado;
   }
 
-  private Map<String, Object> createResponseMap(JsonNode resultado) {
-    String pdfBase64 = resultado.get("pdfBoleto").asText();
-    String nossoNumero = resultado.path("nossoNumero").asText();
-    String seuNumero = resultado.path("seuNumero").asText();
+  private Map<String, Object> createResponseMap(SicoobBillet resultado) {
+    String pdfBase64 = resultado.pdfBoleto();
+    String nossoNumero = resultado.nossoNumero() == null ? "" : resultado.nossoNumero();
+    String seuNumero = resultado.seuNumero() == null ? "" : resultado.seuNumero();
 
     byte[] pdfBytes = pdfCreate.convertBase64ToBytes(pdfBase64);
+    billetPdfStore.put(nossoNumero, pdfBytes);
 
     Map<String, Object> responseMap = new HashMap<>();
     responseMap.put("pdf", pdfBytes);
@@ -129,6 +182,10 @@ public class BilletIssue {
     return responseMap;
   }
 
+  private String copyFileName(String nossoNumero) {
+    return "SEGUNDA-VIA-BOL-" + nossoNumero + ".pdf";
+  }
+
   private String buildEndpointIssueCopy(String nossoNumero) {
     return String.format(
         billetConstants.getBASE_URL()
@@ -0,0 +1,155 @@
+package com.hortifruti.sl.hortifruti.service.billet;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hortifruti.sl.hortifruti.config.websocket.BilletJobSocketHandler;
+import com.hortifruti.sl.hortifruti.dto.billet.BilletJob;
+import com.hortifruti.sl.hortifruti.dto.billet.IssuedBillet;
+import com.hortifruti.sl.hortifruti.exception.ProviderUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fila das emissões assíncronas de boleto. A requisição recebe o ID da emissão na hora e a chamada
+ * ao Sicoob roda em um pool próprio de {@link #WORKERS} threads, então lentidão do banco não prende
+ * threads de requisição.
+ *
+ * <p>A situação de cada emissão fica em memória por {@link #RETENTION} e é enviada pelo canal
+ * {@code /ws/billet-jobs} a cada mudança, só para quem a solicitou. O PDF não é guardado aqui: ele
+ * fica no armazenamento local de boletos.
+ */
+@Slf4j
+@Component
+public class BilletJobs {
+  private static final int WORKERS = 4;
+  private static final int QUEUE_CAPACITY = 200;
+  private static final Duration RETENTION = Duration.ofHours(1);
+  private static final long QUEUE_FULL_RETRY_AFTER_SECONDS = 5;
+
+  private final BilletJobSocketHandler socketHandler;
+  private final ExecutorService executor;
+  private final Cache<String, BilletJob> jobs =
+      Caffeine.newBuilder().expireAfterWrite(RETENTION).build();
+
+  /** Usuários que solicitaram cada emissão; só eles recebem a situação pelo canal. */
+  private final Cache<String, Set<String>> requesters =
+      Caffeine.newBuilder().expireAfterWrite(RETENTION).build();
+
+  /** Emissão em aberto de cada agrupamento, para que cliques repetidos recebam o mesmo ID. */
+  private final Map<Long, String> openJobs = new ConcurrentHashMap<>();
+
+  public BilletJobs(BilletJobSocketHandler socketHandler, MeterRegistry meterRegistry) {
+    this.socketHandler = socketHandler;
+    ThreadPoolExecutor pool =
+        new ThreadPoolExecutor(
+            WORKERS,
+            WORKERS,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+            Thread.ofPlatform().name("billet-job-", 0).factory());
+    this.executor = ExecutorServiceMetrics.monitor(meterRegistry, pool, "billet.jobs");
+  }
+
+  /**
+   * Enfileira a emissão de um agrupamento. Se já houver emissão em aberto para ele, devolve a
+   * existente.
+   *
+   * @param combinedScoreId ID do agrupamento
+   * @param username Usuário que solicitou a emissão
+   * @param issuance Emissão a executar no pool
+   * @return Emissão criada ou em aberto
+   * @throws ProviderUnavailableException Se a fila estiver cheia
+   */
+  public BilletJob submit(Long combinedScoreId, String username, Supplier<IssuedBillet> issuance) {
+    String[] created = new String[1];
+    String jobId =
+        openJobs.computeIfAbsent(
+            combinedScoreId,
+            id -> {
+              BilletJob job =
+                  new BilletJob(
+                      UUID.randomUUID().toString(),
+                      id,
+                      BilletJob.Status.PENDENTE,
+                      null,
+                      null,
+                      null,
+                      LocalDateTime.now(),
+                      null);
+              jobs.put(job.jobId(), job);
+              requesters.put(job.jobId(), ConcurrentHashMap.newKeySet());
+              created[0] = job.jobId();
+              return job.jobId();
+            });
+    Set<String> jobRequesters = requesters.getIfPresent(jobId);
+    if (jobRequesters != null) {
+      jobRequesters.add(username);
+    }
+
+    if (created[0] != null) {
+      try {
+        executor.execute(() -> run(jobId, issuance));
+      } catch (RejectedExecutionException e) {
+        openJobs.remove(combinedScoreId, jobId);
+        jobs.invalidate(jobId);
+        requesters.invalidate(jobId);
+        throw new ProviderUnavailableException(
+            "sicoob",
+            "Fila de emissão de boletos cheia no momento. Tente novamente em breve.",
+            QUEUE_FULL_RETRY_AFTER_SECONDS);
+      }
+    }
+    return jobs.getIfPresent(jobId);
+  }
+
+  /** Situação atual da emissão. */
+  public Optional<BilletJob> find(String jobId) {
+    return Optional.ofNullable(jobs.getIfPresent(jobId));
+  }
+
+  @PreDestroy
+  void shutdown() {
+    executor.shutdown();
+  }
+
+  private void run(String jobId, Supplier<IssuedBillet> issuance) {
+    BilletJob job = update(jobs.getIfPresent(jobId).processing());
+    try {
+      update(job.completed(issuance.get()));
+    } catch (RuntimeException e) {
+      log.warn(
+          "Falha na emissão assíncrona do agrupamento {}: {}",
+          job.combinedScoreId(),
+          e.getMessage());
+      update(job.failed(e.getMessage()));
+    } finally {
+      openJobs.remove(job.combinedScoreId(), jobId);
+    }
+  }
+
+  private BilletJob update(BilletJob job) {
+    jobs.put(job.jobId(), job);
+    Set<String> jobRequesters = requesters.getIfPresent(job.jobId());
+    if (jobRequesters != null) {
+      socketHandler.send(jobRequesters, job);
+    }
+    return job;
+  }
+}
@@ -0,0 +1,64 @@
+package com.hortifruti.sl.hortifruti.service.billet;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.hortifruti.sl.hortifruti.dto.billet.BilletResponse;
+import com.hortifruti.sl.hortifruti.exception.BilletException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache por pagador das listagens de boletos em aberto no Sicoob.
+ *
+ * <p>Após {@link #REFRESH_AFTER} a entrada continua sendo servida enquanto uma nova consulta roda
+ * em segundo plano; se o Sicoob falhar, a listagem anterior é mantida até {@link #EXPIRE_AFTER}.
+ * Emissão e baixa invalidam a entrada do cliente, e a sincronização diária de vencidos grava as
+ * listagens que acabou de consultar, já sem os boletos pagos.
+ */
+@Component
+public class BilletListingCache {
+  private static final Duration REFRESH_AFTER = Duration.ofMinutes(2);
+  private static final Duration EXPIRE_AFTER = Duration.ofMinutes(15);
+  private static final long MAXIMUM_SIZE = 1000;
+
+  private final LoadingCache<Long, List<BilletResponse>> cache;
+
+  public BilletListingCache(BilletQuery billetQuery, MeterRegistry meterRegistry) {
+    this.cache =
+        Caffeine.newBuilder()
+            .maximumSize(MAXIMUM_SIZE)
+            .refreshAfterWrite(REFRESH_AFTER)
+            .expireAfterWrite(EXPIRE_AFTER)
+            .recordStats()
+            .build(clientId -> List.copyOf(billetQuery.listBilletByPayer(clientId)));
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "sicoob.billets.payer");
+  }
+
+  /**
+   * Lista os boletos em aberto do cliente, consultando o Sicoob apenas se não houver entrada.
+   *
+   * @param clientId ID do cliente
+   * @return Lista imutável de boletos do pagador
+   * @throws BilletException Se a consulta ao Sicoob falhar e não houver listagem em cache
+   */
+  public List<BilletResponse> get(long clientId) {
+    try {
+      return cache.get(clientId);
+    } catch (CompletionException e) {
+      throw new BilletException("Erro inesperado ao listar boletos.", e.getCause());
+    }
+  }
+
+  /** Substitui a entrada do cliente por uma listagem recém consultada no Sicoob. */
+  public void put(Long clientId, List<BilletResponse> billets) {
+    cache.put(clientId, List.copyOf(billets));
+  }
+
+  public void invalidate(Long clientId) {
+    cache.invalidate(clientId);
+  }
+}
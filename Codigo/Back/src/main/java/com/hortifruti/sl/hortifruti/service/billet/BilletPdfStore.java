@@ -0,0 +1,175 @@
+package com.hortifruti.sl.hortifruti.service.billet;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hortifruti.sl.hortifruti.exception.BilletException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Armazenamento local dos PDFs de boletos emitidos, indexado pelo nosso número do Sicoob.
+ *
+ * <p>O conteúdo fica em {@code blobs/<sha256>.pdf} e cada boleto aponta para o seu arquivo por
+ * {@code refs/<nossoNumero>}; as gravações usam arquivo temporário e move atômico. Os PDFs mais
+ * acessados ficam também em memória, limitados por {@link #MEMORY_LIMIT_BYTES}.
+ */
+@Slf4j
+@Component
+public class BilletPdfStore {
+  private static final long MEMORY_LIMIT_BYTES = 32L * 1024 * 1024;
+
+  private final Path blobsDir;
+  private final Path refsDir;
+  private final Cache<String, byte[]> memory;
+
+  public BilletPdfStore(
+      @Value("${billet.pdf.store.dir:}") String storeDir, MeterRegistry meterRegistry)
+      throws IOException {
+    Path root =
+        storeDir.isBlank()
+            ? Paths.get(System.getProperty("java.io.tmpdir"), "hortifruti", "billets")
+            : Paths.get(storeDir);
+    this.blobsDir = Files.createDirectories(root.resolve("blobs"));
+    this.refsDir = Files.createDirectories(root.resolve("refs"));
+    this.memory =
+        Caffeine.newBuilder()
+            .maximumWeight(MEMORY_LIMIT_BYTES)
+            .weigher((String key, byte[] pdf) -> pdf.length)
+            .recordStats()
+            .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, memory, "sicoob.billets.pdf");
+  }
+
+  /**
+   * Grava o PDF de um boleto. Falhas de disco só são registradas em log, pois o PDF continua
+   * disponível no Sicoob.
+   */
+  public void put(String ourNumber, byte[] pdf) {
+    if (ourNumber == null || ourNumber.isBlank() || pdf == null || pdf.length == 0) {
+      return;
+    }
+    String key = key(ourNumber);
+    memory.put(key, pdf);
+    try {
+      String hash = sha256(pdf);
+      Path blob = blobsDir.resolve(hash + ".pdf");
+      if (!Files.exists(blob)) {
+        writeAtomically(blob, pdf);
+      }
+      writeAtomically(refsDir.resolve(key), hash.getBytes(StandardCharsets.US_ASCII));
+    } catch (IOException e) {
+      log.warn("Não foi possível gravar o PDF do boleto {}: {}", ourNumber, e.getMessage());
+    }
+  }
+
+  /** PDF do boleto para resposta HTTP: da memória, ou do disco sem carregá-lo por inteiro. */
+  public Optional<Resource> find(String ourNumber) {
+    if (ourNumber == null || ourNumber.isBlank()) {
+      return Optional.empty();
+    }
+    String key = key(ourNumber);
+    byte[] cached = memory.getIfPresent(key);
+    if (cached != null) {
+      return Optional.of(new ByteArrayResource(cached));
+    }
+    return blobPath(key).map(FileSystemResource::new);
+  }
+
+  /** Bytes do PDF do boleto, carregando-os em memória caso estejam apenas em disco. */
+  public Optional<byte[]> findBytes(String ourNumber) {
+    if (ourNumber == null || ourNumber.isBlank()) {
+      return Optional.empty();
+    }
+    String key = key(ourNumber);
+    byte[] cached = memory.getIfPresent(key);
+    if (cached != null) {
+      return Optional.of(cached);
+    }
+    Optional<Path> blob = blobPath(key);
+    if (blob.isEmpty()) {
+      return Optional.empty();
+    }
+    try {
+      byte[] pdf = Files.readAllBytes(blob.get());
+      memory.put(key, pdf);
+      return Optional.of(pdf);
+    } catch (IOException e) {
+      log.warn("Não foi possível ler o PDF do boleto {}: {}", ourNumber, e.getMessage());
+      return Optional.empty();
+    }
+  }
+
+  /** Remove o PDF de um boleto que mudou de situação (ex.: baixa). */
+  public void evict(String ourNumber) {
+    if (ourNumber == null || ourNumber.isBlank()) {
+      return;
+    }
+    String key = key(ourNumber);
+    memory.invalidate(key);
+    try {
+      Optional<Path> blob = blobPath(key);
+      Files.deleteIfExists(refsDir.resolve(key));
+      if (blob.isPresent()) {
+        Files.deleteIfExists(blob.get());
+      }
+    } catch (IOException e) {
+      log.warn("Não foi possível remover o PDF do boleto {}: {}", ourNumber, e.getMessage());
+    }
+  }
+
+  private Optional<Path> blobPath(String key) {
+    Path ref = refsDir.resolve(key);
+    if (!Files.isRegularFile(ref)) {
+      return Optional.empty();
+    }
+    try {
+      String hash = Files.readString(ref, StandardCharsets.US_ASCII).trim();
+      Path blob = blobsDir.resolve(hash + ".pdf");
+      return Files.isRegularFile(blob) ? Optional.of(blob) : Optional.empty();
+    } catch (IOException e) {
+      return Optional.empty();
+    }
+  }
+
+  private void writeAtomically(Path target, byte[] content) throws IOException {
+    Path temp = Files.createTempFile(target.getParent(), ".tmp-", null);
+    try {
+      Files.write(temp, content);
+      Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  private String key(String ourNumber) {
+    String key = ourNumber.replaceAll("[^A-Za-z0-9_-]", "");
+    if (key.isEmpty()) {
+      throw new BilletException("Nosso número inválido: " + ourNumber);
+    }
+    return key;
+  }
+
+  private String sha256(byte[] content) {
+    try {
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
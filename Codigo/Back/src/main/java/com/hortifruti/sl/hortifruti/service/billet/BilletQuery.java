@@ -1,13 +1,19 @@
 package com.hortifruti.sl.hortifruti.service.billet;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.hortifruti.sl.hortifruti.config.billet.BilletHttpClient;
 import com.hortifruti.sl.hortifruti.dto.billet.BilletResponse;
+import com.hortifruti.sl.hortifruti.dto.billet.IssuedBillet;
+import com.hortifruti.sl.hortifruti.dto.billet.SicoobBillet;
+import com.hortifruti.sl.hortifruti.dto.billet.SicoobResponse;
 import com.hortifruti.sl.hortifruti.exception.BilletException;
+import com.hortifruti.sl.hortifruti.model.purchase.Client;
 import com.hortifruti.sl.hortifruti.model.purchase.CombinedScore;
+import com.hortifruti.sl.hortifruti.repository.purchase.CombinedScoreRepository;
 import java.io.IOException;
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import lombok.AllArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
@@ -21,6 +27,7 @@ public class BilletQuery {
   private final BilletHttpClient httpClient;
   private final BilletValidation billetValidation;
   private final BilletInfoCombinedAndClient billetInfoCombinedAndClient;
+  private final CombinedScoreRepository combinedScoreRepository;
 
   /**
    * Lista os boletos de um pagador específico.
@@ -30,18 +37,58 @@ public class BilletQuery {
    * @throws IOException Se houver erro na comunicação ou no processamento da resposta
    */
   public List<BilletResponse> listBilletByPayer(long clientId) throws IOException {
-    String numeroCpfCnpj = getClientDocument(clientId);
+    return listBilletByDocument(getClientDocument(clientId));
+  }
+
+  /**
+   * Lista os boletos em aberto de um pagador a partir do seu documento, sem consultar o banco.
+   *
+   * @param numeroCpfCnpj CPF ou CNPJ do pagador, apenas dígitos
+   * @return Lista de boletos do pagador
+   * @throws IOException Se houver erro na comunicação ou no processamento da resposta
+   */
+  public List<BilletResponse> listBilletByDocument(String numeroCpfCnpj) throws IOException {
+    List<BilletResponse> boletos = new ArrayList<>();
+    for (SicoobBillet boleto : fetchOpenBillets(numeroCpfCnpj)) {
+      boletos.add(toBilletResponse(boleto));
+    }
+    return boletos;
+  }
+
+  /**
+   * Procura no Sicoob o boleto em aberto de um agrupamento que ainda não foi gravado nele, como o
+   * de uma emissão registrada pelo banco cuja resposta não chegou. Casa pagador, emissão,
+   * vencimento e valor, ignorando os boletos já vinculados a algum agrupamento.
+   *
+   * @param combinedScore Agrupamento do boleto
+   * @param client Pagador do agrupamento
+   * @return Boleto encontrado, sem o PDF
+   * @throws IOException Se houver erro na comunicação ou no processamento da resposta
+   */
+  public Optional<IssuedBillet> findUnrecordedBillet(CombinedScore combinedScore, Client client)
+      throws IOException {
+    String issuedAt = combinedScore.getConfirmedAt().toString();
+    String dueDate = combinedScore.getDueDate().toString();
+    for (SicoobBillet boleto : fetchOpenBillets(normalizeDocument(client.getDocument()))) {
+      if (boleto.nossoNumero() != null
+          && text(boleto.dataEmissao()).startsWith(issuedAt)
+          && text(boleto.dataVencimento()).startsWith(dueDate)
+          && boleto.valor() != null
+          && boleto.valor().compareTo(combinedScore.getTotalValue()) == 0
+          && !combinedScoreRepository.existsByOurNumber(boleto.nossoNumero())) {
+        return Optional.of(new IssuedBillet(boleto.nossoNumero(), boleto.seuNumero(), null));
+      }
+    }
+    return Optional.empty();
+  }
+
+  private List<SicoobBillet> fetchOpenBillets(String numeroCpfCnpj) throws IOException {
     String endpoint = buildListBilletEndpoint(numeroCpfCnpj);
     try {
-      ResponseEntity<JsonNode> response = httpClient.getWithResponse(endpoint);
+      ResponseEntity<SicoobResponse<List<SicoobBillet>>> response =
+          httpClient.getWithResponse(endpoint, BilletHttpClient.BILLET_LIST);
       billetValidation.validateResponse(response);
-      JsonNode resultado = getResponseResult(response);
-      List<BilletResponse> boletos = new ArrayList<>();
-      for (JsonNode boletoNode : resultado) {
-        BilletResponse boleto = mapJsonToBilletResponse(boletoNode);
-        boletos.add(boleto);
-      }
-      return boletos;
+      return response.getBody().resultado();
     } catch (HttpClientErrorException e) {
       throw new BilletException(
           "Erro na requisição para listar boletos: " + e.getResponseBodyAsString(), e);
@@ -68,21 +115,12 @@ public class BilletQuery {
       String endpoint = buildBilletEndpoint(combinedScore.getOurNumber_sicoob());
 
       // Faz a requisição para obter o boleto
-      ResponseEntity<JsonNode> response = httpClient.getWithResponse(endpoint);
+      ResponseEntity<SicoobResponse<SicoobBillet>> response =
+          httpClient.getWithResponse(endpoint, BilletHttpClient.BILLET);
       billetValidation.validateResponse(response);
 
-      // Verifica se a resposta é válida
-      JsonNode resposta = response.getBody();
-      if (resposta == null || resposta.isEmpty()) {
-        throw new BilletException(
-            "Nenhum boleto encontrado para o número: " + combinedScore.getOurNumber_sicoob());
-      }
-
-      // Acessa o campo "resultado" que contém os detalhes do boleto
-      JsonNode resultado = getResponseResult(response);
-
-      // Mapeia os dados para um objeto BilletResponse
-      return mapJsonToBilletResponse(resultado);
+      // Mapeia o campo "resultado", que contém os detalhes do boleto
+      return toBilletResponse(response.getBody().resultado());
 
     } catch (HttpClientErrorException e) {
       throw new BilletException(
@@ -94,12 +132,6 @@ public class BilletQuery {
     }
   }
 
-  private JsonNode getResponseResult(ResponseEntity<JsonNode> response) {
-    JsonNode resultado = response.getBody().path("resultado");
-
-    return resultado;
-  }
-
   private String buildListBilletEndpoint(String numeroCpfCnpj) {
     return String.format(
         billetConstants.getBASE_URL() + "pagadores/%s/boletos?numeroCliente=%d&codigoSituacao=1",
@@ -108,20 +140,25 @@ public class BilletQuery {
   }
 
   private String getClientDocument(long clientId) {
-    return billetInfoCombinedAndClient
-        .findClientById(clientId)
-        .getDocument()
-        .replaceAll("[^\\d]", "");
+    return normalizeDocument(billetInfoCombinedAndClient.findClientById(clientId).getDocument());
   }
 
-  private BilletResponse mapJsonToBilletResponse(JsonNode boletoNode) {
+  protected String normalizeDocument(String document) {
+    return document.replaceAll("[^\\d]", "");
+  }
+
+  private BilletResponse toBilletResponse(SicoobBillet boleto) {
     return new BilletResponse(
-        boletoNode.path("pagador").path("nome").asText(),
-        boletoNode.path("dataEmissao").asText(),
-        boletoNode.path("dataVencimento").asText(),
-        boletoNode.path("seuNumero").asText(),
-        boletoNode.path("situacaoBoleto").asText(),
-        boletoNode.path("valor").decimalValue());
+        boleto.pagador() == null ? "" : text(boleto.pagador().nome()),
+        text(boleto.dataEmissao()),
+        text(boleto.dataVencimento()),
+        text(boleto.seuNumero()),
+        text(boleto.situacaoBoleto()),
+        boleto.valor() == null ? BigDecimal.ZERO : boleto.valor());
+  }
+
+  private String text(String value) {
+    return value == null ? "" : value;
   }
 
   private String buildBilletEndpoint(String nossoNumero) {
@@ -1,30 +1,51 @@
 package com.hortifruti.sl.hortifruti.service.billet;
 
+import com.hortifruti.sl.hortifruti.dto.billet.BilletJob;
 import com.hortifruti.sl.hortifruti.dto.billet.BilletRequestSimplified;
 import com.hortifruti.sl.hortifruti.dto.billet.BilletResponse;
+import com.hortifruti.sl.hortifruti.dto.billet.BulkBilletRequest;
+import com.hortifruti.sl.hortifruti.dto.billet.IssuedBillet;
 import com.hortifruti.sl.hortifruti.dto.billet.Pagador;
 import com.hortifruti.sl.hortifruti.exception.BilletException;
 import com.hortifruti.sl.hortifruti.exception.CombinedScoreException;
+import com.hortifruti.sl.hortifruti.exception.IssuanceInProgressException;
+import com.hortifruti.sl.hortifruti.model.enumeration.IssuanceOperation;
 import com.hortifruti.sl.hortifruti.model.enumeration.Status;
 import com.hortifruti.sl.hortifruti.model.purchase.Client;
 import com.hortifruti.sl.hortifruti.model.purchase.CombinedScore;
 import com.hortifruti.sl.hortifruti.repository.purchase.CombinedScoreRepository;
+import com.hortifruti.sl.hortifruti.service.purchase.IssuanceIdempotency;
+import jakarta.annotation.PreDestroy;
 import java.io.IOException;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class BilletService {
+  private static final int SYNC_PARALLELISM = 4;
 
   public List<CombinedScore> findAllPendingWithBilletByClient(Long clientId) {
     return combinedScoreRepository.findAllPendingWithBilletByClient(clientId);
@@ -40,15 +61,29 @@ public class BilletService {
   private final BilletQuery billetQuery;
   private final BilletCancel billetCancel;
   private final BilletInfoCombinedAndClient billetInfoCombinedAndClient;
+  private final BilletListingCache billetListingCache;
+  private final BilletBulkIssue billetBulkIssue;
+  private final IssuanceIdempotency issuanceIdempotency;
+  private final BilletJobs billetJobs;
+  private final TransactionTemplate transactionTemplate;
+
+  /** Consultas ao Sicoob da sincronização de vencidos, compartilhadas entre as execuções. */
+  private final ExecutorService syncExecutor =
+      Executors.newFixedThreadPool(
+          SYNC_PARALLELISM, Thread.ofPlatform().name("billet-sync-", 0).factory());
 
   public List<BilletResponse> listBilletByPayer(long clientId) throws IOException {
-    return billetQuery.listBilletByPayer(clientId);
+    return billetListingCache.get(clientId);
   }
 
   public ResponseEntity<byte[]> issueCopy(Long idCombinedScore) throws IOException {
     return billetIssue.issueCopy(idCombinedScore);
   }
 
+  public ResponseEntity<Resource> openCopy(Long idCombinedScore) throws IOException {
+    return billetIssue.openCopy(idCombinedScore);
+  }
+
   public ResponseEntity<String> cancelBillet(Long idCombinedScore)
       throws IOException, BilletException {
     return billetCancel.cancelBillet(idCombinedScore);
@@ -59,7 +94,8 @@ public class BilletService {
   }
 
   /**
-   * Gera um boleto para um CombinedScore específico e retorna o PDF para download.
+   * Gera um boleto para um CombinedScore específico e retorna o PDF para download. A emissão é
+   * idempotente por agrupamento: uma requisição repetida recebe o boleto já emitido.
    *
    * @param combinedScoreId ID do CombinedScore
    * @param number Número identificador do boleto
@@ -69,69 +105,168 @@ public class BilletService {
   @Transactional
   public ResponseEntity<byte[]> generateBillet(Long combinedScoreId, String number)
       throws IOException {
-    CombinedScore combinedScore =
-        billetInfoCombinedAndClient.findCombinedScoreById(combinedScoreId);
+    IssuedBillet billet = issueAndRecord(combinedScoreId, number);
+    return buildPdfResponse(billet.pdf(), billet.seuNumero());
+  }
 
-    try {
-      Client client = billetInfoCombinedAndClient.findClientById(combinedScore.getClientId());
-      Pagador pagador = billetFactory.createPagadorFromClient(client);
-      BilletRequestSimplified billetRequest =
-          billetFactory.createBilletRequest(combinedScore, combinedScoreId, pagador, number);
-      Map<String, Object> responseBody = issueBilletAndExtractResponse(billetRequest);
-      updateCombinedScoreWithBilletData(combinedScore, responseBody);
-      return buildPdfResponse((byte[]) responseBody.get("pdf"), combinedScore.getYourNumber());
-    } catch (Exception e) {
-      throw new CombinedScoreException("Erro ao gerar o boleto: " + e.getMessage(), e);
-    }
+  /**
+   * Enfileira a emissão do boleto de um CombinedScore e retorna na hora, sem esperar o Sicoob. O
+   * PDF fica disponível pela segunda via assim que a emissão for concluída.
+   *
+   * @param combinedScoreId ID do CombinedScore
+   * @param number Número identificador do boleto
+   * @param username Usuário que solicitou a emissão, notificado pelo canal de emissões
+   * @return Emissão enfileirada, ou a que já estiver em aberto para o agrupamento
+   */
+  public BilletJob generateBilletAsync(Long combinedScoreId, String number, String username) {
+    billetInfoCombinedAndClient.findCombinedScoreById(combinedScoreId);
+    return billetJobs.submit(
+        combinedScoreId,
+        username,
+        () -> transactionTemplate.execute(status -> issueAndRecord(combinedScoreId, number)));
   }
 
+  public Optional<BilletJob> findBilletJob(String jobId) {
+    return billetJobs.find(jobId);
+  }
+
+  /**
+   * Emite os boletos de vários agrupamentos e devolve um ZIP com os PDFs e um resumo em CSV.
+   *
+   * @param request Agrupamentos a emitir
+   * @return Corpo da resposta em streaming com o ZIP
+   */
+  public StreamingResponseBody generateBillets(BulkBilletRequest request) {
+    return billetBulkIssue.issue(request);
+  }
+
+  /**
+   * Sincroniza com o Sicoob os agrupamentos vencidos e devolve os que continuam pendentes.
+   *
+   * <p>A lista de boletos em aberto é consultada uma única vez por pagador, com no máximo {@link
+   * #SYNC_PARALLELISM} consultas simultâneas, e os agrupamentos quitados são atualizados em um
+   * único comando.
+   *
+   * @param currentDate Data de referência para o vencimento
+   * @return Agrupamentos que permanecem pendentes
+   */
   @Transactional
   public List<CombinedScore> syncAndFindOverdueUnpaidScores(LocalDate currentDate) {
     // Busca todos os CombinedScore vencidos e não confirmados
     List<CombinedScore> overdueScores =
         combinedScoreRepository.findOverdueUnpaidScores(currentDate);
 
-    // Lista para armazenar os CombinedScore que permanecem pendentes
-    List<CombinedScore> remainingPendingScores = new ArrayList<>();
-
-    for (CombinedScore combinedScore : overdueScores) {
-      boolean shouldRemainPending = true;
-
-      // Verifica se o CombinedScore possui um boleto associado e está pendente
-      if (combinedScore.isHasBillet() && combinedScore.getStatus() == Status.PENDENTE) {
-        try {
-          // Busca a lista de boletos atualizada do BilletService
-          List<BilletResponse> updatedBillets = listBilletByPayer(combinedScore.getClientId());
-
-          // Busca o boleto específico pelo seu número
-          Optional<BilletResponse> currentBillet =
-              updatedBillets.stream()
-                  .filter(billet -> billet.seuNumero().equals(combinedScore.getYourNumber()))
-                  .findFirst();
-
-          // Se o boleto não estiver presente na lista, considera como pago
-          if (currentBillet.isEmpty()) {
-            combinedScore.setStatus(Status.PAGO);
-            combinedScoreRepository.save(combinedScore);
-            shouldRemainPending = false;
+    // Agrupa por cliente apenas os que possuem boleto pendente
+    Map<Long, List<CombinedScore>> scoresWithBilletByClient =
+        overdueScores.stream()
+            .filter(score -> score.isHasBillet() && score.getStatus() == Status.PENDENTE)
+            .collect(Collectors.groupingBy(CombinedScore::getClientId));
+
+    Map<Long, Set<String>> openBilletsByClient =
+        fetchOpenBillets(scoresWithBilletByClient.keySet());
+
+    // Um boleto ausente da lista do pagador é considerado pago
+    List<Long> paidIds = new ArrayList<>();
+    scoresWithBilletByClient.forEach(
+        (clientId, scores) -> {
+          Set<String> openBillets = openBilletsByClient.get(clientId);
+          if (openBillets == null) {
+            return; // Falha na consulta: mantém como pendente para nova tentativa
           }
-        } catch (Exception e) {
-          // Em caso de erro, mantém como pendente para nova tentativa
-          shouldRemainPending = true;
-        }
-      }
-
-      // Adiciona à lista de pendentes apenas se deve permanecer pendente
-      if (shouldRemainPending) {
-        remainingPendingScores.add(combinedScore);
-      }
+          scores.stream()
+              .filter(score -> !openBillets.contains(score.getYourNumber()))
+              .forEach(score -> paidIds.add(score.getId()));
+        });
+
+    if (!paidIds.isEmpty()) {
+      combinedScoreRepository.updateStatusByIds(paidIds, Status.PAGO);
     }
 
-    return remainingPendingScores;
+    Set<Long> paid = new HashSet<>(paidIds);
+    return overdueScores.stream().filter(score -> !paid.contains(score.getId())).toList();
+  }
+
+  /**
+   * Consulta os boletos em aberto de cada cliente. Clientes cuja consulta falhou ficam fora do
+   * mapa.
+   */
+  private Map<Long, Set<String>> fetchOpenBillets(Collection<Long> clientIds) {
+    if (clientIds.isEmpty()) {
+      return Map.of();
+    }
+
+    Map<Long, Client> clients = billetInfoCombinedAndClient.findClientsByIds(clientIds);
+    if (clients.isEmpty()) {
+      // Agrupamentos de clientes removidos: nada a consultar
+      return Map.of();
+    }
+    Map<Long, Set<String>> openBillets = new ConcurrentHashMap<>();
+
+    List<CompletableFuture<Void>> lookups =
+        clients.values().stream()
+            .map(
+                client ->
+                    CompletableFuture.runAsync(
+                        () -> {
+                          try {
+                            List<BilletResponse> billets =
+                                billetQuery.listBilletByDocument(
+                                    billetQuery.normalizeDocument(client.getDocument()));
+                            billetListingCache.put(client.getId(), billets);
+                            openBillets.put(
+                                client.getId(),
+                                billets.stream()
+                                    .map(BilletResponse::seuNumero)
+                                    .collect(Collectors.toSet()));
+                          } catch (Exception e) {
+                            log.warn(
+                                "Falha ao consultar boletos do cliente {}: {}",
+                                client.getId(),
+                                e.getMessage());
+                          }
+                        },
+                        syncExecutor))
+            .toList();
+    CompletableFuture.allOf(lookups.toArray(CompletableFuture[]::new)).join();
+
+    return openBillets;
   }
 
-  private Map<String, Object> issueBilletAndExtractResponse(BilletRequestSimplified billetRequest)
+  @PreDestroy
+  void shutdown() {
+    syncExecutor.shutdown();
+  }
+
+  private IssuedBillet issueAndRecord(Long combinedScoreId, String number) {
+    CombinedScore combinedScore =
+        billetInfoCombinedAndClient.findCombinedScoreById(combinedScoreId);
+
+    try {
+      Client client = billetInfoCombinedAndClient.findClientById(combinedScore.getClientId());
+      IssuedBillet billet =
+          issuanceIdempotency.issue(
+              combinedScoreId,
+              IssuanceOperation.BOLETO,
+              IssuedBillet.class,
+              reference -> billetQuery.findUnrecordedBillet(combinedScore, client),
+              reference -> issueBilletFor(combinedScore, client, number));
+      byte[] pdf =
+          billet.pdf() != null ? billet.pdf() : billetIssue.fetchCopyPdf(billet.nossoNumero());
+      updateCombinedScoreWithBilletData(combinedScore, billet);
+      billetListingCache.invalidate(client.getId());
+      return new IssuedBillet(billet.nossoNumero(), billet.seuNumero(), pdf);
+    } catch (IssuanceInProgressException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new CombinedScoreException("Erro ao gerar o boleto: " + e.getMessage(), e);
+    }
+  }
+
+  private IssuedBillet issueBilletFor(CombinedScore combinedScore, Client client, String number)
       throws IOException {
+    Pagador pagador = billetFactory.createPagadorFromClient(client);
+    BilletRequestSimplified billetRequest =
+        billetFactory.createBilletRequest(combinedScore, combinedScore.getId(), pagador, number);
     ResponseEntity<Map<String, Object>> billetResponse = billetIssue.issueBillet(billetRequest);
     Map<String, Object> responseBody = billetResponse.getBody();
 
@@ -139,7 +274,10 @@ public class BilletService {
       throw new CombinedScoreException("Erro ao processar a resposta da API: corpo vazio.");
     }
 
-    return responseBody;
+    return new IssuedBillet(
+        (String) responseBody.get("nossoNumero"),
+        (String) responseBody.get("seuNumero"),
+        (byte[]) responseBody.get("pdf"));
   }
 
   private ResponseEntity<byte[]> buildPdfResponse(byte[] pdfBytes, String yourNumber) {
@@ -150,14 +288,10 @@ public class BilletService {
     return ResponseEntity.ok().headers(headers).body(pdfBytes);
   }
 
-  private void updateCombinedScoreWithBilletData(
-      CombinedScore combinedScore, Map<String, Object> responseBody) {
-    String nossoNumero = (String) responseBody.get("nossoNumero");
-    String seuNumero = (String) responseBody.get("seuNumero");
-
+  private void updateCombinedScoreWithBilletData(CombinedScore combinedScore, IssuedBillet billet) {
     combinedScore.setHasBillet(true);
-    combinedScore.setOurNumber_sicoob(nossoNumero);
-    combinedScore.setYourNumber(seuNumero);
+    combinedScore.setOurNumber_sicoob(billet.nossoNumero());
+    combinedScore.setYourNumber(billet.seuNumero());
     combinedScoreRepository.save(combinedScore);
   }
 }
@@ -1,6 +1,6 @@
 package com.hortifruti.sl.hortifruti.service.billet;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.hortifruti.sl.hortifruti.dto.billet.SicoobResponse;
 import com.hortifruti.sl.hortifruti.exception.BilletException;
 import com.hortifruti.sl.hortifruti.exception.CombinedScoreException;
 import com.hortifruti.sl.hortifruti.model.purchase.CombinedScore;
@@ -19,10 +19,10 @@ public class BilletValidation {
     }
   }
 
-  protected void validateResponse(ResponseEntity<JsonNode> response) {
+  protected void validateResponse(ResponseEntity<? extends SicoobResponse<?>> response) {
     if (response.getStatusCode() == HttpStatus.NO_CONTENT
         || response.getBody() == null
-        || response.getBody().isEmpty()) {
+        || response.getBody().resultado() == null) {
       throw new BilletException("Resposta da API está vazia ou inválida.");
     }
   }
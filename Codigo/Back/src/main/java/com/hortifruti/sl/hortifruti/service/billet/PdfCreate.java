@@ -39,6 +39,21 @@ public class PdfCreate {
     }
   }
 
+  /**
+   * Cria uma resposta HTTP a partir dos bytes de um PDF.
+   *
+   * @param pdfBytes Conteúdo do PDF
+   * @param nomeArquivo Nome do arquivo PDF para download
+   * @return Resposta HTTP com o PDF
+   */
+  public ResponseEntity<byte[]> createResponsePdf(byte[] pdfBytes, String nomeArquivo) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.APPLICATION_PDF);
+    headers.setContentDispositionFormData("attachment", nomeArquivo);
+
+    return ResponseEntity.ok().headers(headers).body(pdfBytes);
+  }
+
   /**
    * Decodifica uma string Base64 contendo um PDF e retorna os bytes.
    *
@@ -0,0 +1,61 @@
+package com.hortifruti.sl.hortifruti.service.cache;
+
+import com.hortifruti.sl.hortifruti.model.ClimateProduct;
+import com.hortifruti.sl.hortifruti.model.FreightConfig;
+import com.hortifruti.sl.hortifruti.model.User;
+import com.hortifruti.sl.hortifruti.model.purchase.Client;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.springframework.stereotype.Service;
+
+/**
+ * Ponto único de invalidação do cache de segundo nível do Hibernate. O cache é local a cada
+ * instância: alterações feitas por esta aplicação já atualizam o cache, mas alterações feitas por
+ * outra instância ou direto no banco só são vistas após o TTL da região ou após uma invalidação
+ * explícita por aqui.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EntityCacheService {
+
+  private static final Map<String, Class<?>> CACHED_ENTITIES =
+      Map.of(
+          "client", Client.class,
+          "user", User.class,
+          "climate-product", ClimateProduct.class,
+          "freight-config", FreightConfig.class);
+
+  private final EntityManagerFactory entityManagerFactory;
+
+  /** Remove uma entidade do cache. Sem ID, remove todas as entidades daquele tipo. */
+  public void evict(String entity, Long id) {
+    Class<?> entityClass = CACHED_ENTITIES.get(entity);
+    if (entityClass == null) {
+      throw new IllegalArgumentException(
+          "Entidade sem cache: " + entity + ". Valores aceitos: " + CACHED_ENTITIES.keySet());
+    }
+
+    Cache cache = cache();
+    if (id == null) {
+      cache.evictEntityData(entityClass);
+    } else {
+      cache.evictEntityData(entityClass, id);
+    }
+    cache.evictDefaultQueryRegion();
+    log.info("Cache de segundo nível invalidado: {} {}", entity, id == null ? "(todos)" : id);
+  }
+
+  /** Remove todas as entidades e consultas do cache. */
+  public void evictAll() {
+    cache().evictAllRegions();
+    log.info("Cache de segundo nível invalidado por completo");
+  }
+
+  private Cache cache() {
+    return entityManagerFactory.getCache().unwrap(Cache.class);
+  }
+}
@@ -7,6 +7,7 @@ import com.hortifruti.sl.hortifruti.dto.freight.LocationRequest;
 import com.hortifruti.sl.hortifruti.exception.DistanceException;
 import lombok.RequiredArgsConstructor;
 import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
@@ -23,6 +24,9 @@ public class DistanceMatrixService {
 
   private final FreightService freightService;
 
+  @Qualifier("googleMapsRestTemplate")
+  private final RestTemplate restTemplate;
+
   public DistanceFreightResponse calculateDistanceAndFreight(LocationRequest locationRequest) {
     DistanceResponse distanceResponse = fetchDistanceAndDuration(locationRequest);
 
@@ -77,7 +81,6 @@ public class DistanceMatrixService {
   }
 
   private String fetchApiResponse(String url) {
-    RestTemplate restTemplate = new RestTemplate();
     return restTemplate.getForObject(url, String.class);
   }
 
@@ -1,263 +1,248 @@
 package com.hortifruti.sl.hortifruti.service.invoice;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.hortifruti.sl.hortifruti.config.FocusNfeApiClient;
+import com.hortifruti.sl.hortifruti.config.http.OutboundResilience;
+import com.hortifruti.sl.hortifruti.dto.invoice.FocusNfeInvoice;
+import com.hortifruti.sl.hortifruti.dto.invoice.XmlPart;
 import com.hortifruti.sl.hortifruti.exception.InvoiceException;
+import jakarta.annotation.PostConstruct;
 import jakarta.transaction.Transactional;
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+@Slf4j
 @RequiredArgsConstructor
 @Service
 public class DanfeXmlService {
 
-  private final WebClient webClient;
-  private final FocusNfeApiClient focusNfeApiClient;
-  private final int COMPLETE = 1;
+  /** Downloads de DANFE/XML têm bulkhead próprio, separado das chamadas à API da Focus NFe. */
+  private static final String FILES_PROVIDER = "focus-nfe-files";
 
-  @Value("${focus.nfe.api.url}")
-  private String focusNfeApiUrl;
+  private static final int MAX_CONCURRENT_DOWNLOADS = 5;
 
-  private String getFilePathFromApi(String ref, String jsonPath) {
-    try {
-      String response = focusNfeApiClient.sendGetRequest(ref, COMPLETE);
-      ObjectMapper objectMapper = new ObjectMapper();
-      JsonNode rootNode = objectMapper.readTree(response);
+  /** Buffers pedidos ao provedor por vez no repasse de um arquivo. */
+  private static final int STREAM_DEMAND = 4;
 
-      // Verifica o status da nota
-      String status = rootNode.path("status").asText();
-      if (status.contains("processando") || status.contains("pendente")) {
-        throw new InvoiceException(
-            "A nota fiscal ainda está sendo processada. Aguarde alguns instantes e tente novamente.");
-      }
+  private final WebClient webClient;
+  private final InvoiceDocumentReadiness invoiceDocumentReadiness;
+  private final OutboundResilience outboundResilience;
+  private final InvoiceFetchEngine invoiceFetchEngine;
 
-      String filePath = rootNode.path(jsonPath).asText();
+  @Value("${focus.nfe.api.url}")
+  private String focusNfeApiUrl;
 
-      // Verifica se o caminho do arquivo foi retornado
-      if (filePath == null || filePath.trim().isEmpty()) {
-        throw new InvoiceException(
-            "Arquivo ainda não disponível. A nota fiscal pode estar em processamento.");
-      }
+  @PostConstruct
+  void registerProvider() {
+    outboundResilience.register(
+        FILES_PROVIDER, MAX_CONCURRENT_DOWNLOADS, java.time.Duration.ofSeconds(30));
+  }
 
-      return filePath;
+  /**
+   * Faz o download do arquivo se a nota já estiver pronta; se ainda estiver em processamento,
+   * responde 202 com {@code Retry-After} na hora, sem prender a requisição esperando a Focus NFe.
+   */
+  private ResponseEntity<Resource> downloadWhenReady(
+      String ref,
+      Function<FocusNfeInvoice, String> filePathField,
+      MediaType mediaType,
+      String filePrefix) {
+    FocusNfeInvoice invoice;
+    try {
+      invoice = invoiceDocumentReadiness.findReady(ref).orElse(null);
     } catch (InvoiceException e) {
       throw e;
     } catch (Exception e) {
       throw new InvoiceException("Erro ao consultar arquivo com referência: " + ref, e);
     }
-  }
 
-  private String getDanfePath(String ref) {
-    return getFilePathFromApi(ref, "caminho_danfe");
-  }
+    if (invoice == null) {
+      return ResponseEntity.accepted()
+          .header(
+              HttpHeaders.RETRY_AFTER, String.valueOf(InvoiceDocumentReadiness.RETRY_AFTER_SECONDS))
+          .build();
+    }
+
+    String filePath = filePathField.apply(invoice);
+    if (filePath == null || filePath.trim().isEmpty()) {
+      throw new InvoiceException(
+          "Arquivo não disponível para a nota fiscal com status '" + invoice.status() + "'.");
+    }
 
-  private String getXmlPath(String ref) {
-    return getFilePathFromApi(ref, "caminho_xml_nota_fiscal");
+    return downloadFileStream(ref, filePath, mediaType, filePrefix);
   }
 
+  /**
+   * Repassa o arquivo da Focus NFe em streaming: o corpo é lido sob demanda, alguns buffers por
+   * vez, enquanto é escrito na resposta, e o {@code Content-Length} do provedor é mantido. A
+   * resposta só começa depois do primeiro byte, então erros do provedor ainda viram respostas de
+   * erro.
+   */
   private ResponseEntity<Resource> downloadFileStream(
       String ref, String fileUrl, MediaType mediaType, String filePrefix) {
+    String fullUrl = focusNfeApiUrl + fileUrl;
+    AtomicReference<HttpHeaders> upstreamHeaders = new AtomicReference<>();
+
+    Flux<DataBuffer> body =
+        outboundResilience.executeFlux(
+            FILES_PROVIDER,
+            () ->
+                webClient
+                    .get()
+                    .uri(fullUrl)
+                    .accept(MediaType.ALL)
+                    .retrieve()
+                    .toEntityFlux(DataBuffer.class)
+                    .flatMapMany(
+                        entity -> {
+                          upstreamHeaders.set(entity.getHeaders());
+                          return entity.getBody() == null ? Flux.empty() : entity.getBody();
+                        })
+                    .timeout(java.time.Duration.ofSeconds(100)));
+
+    PushbackInputStream content =
+        new PushbackInputStream(DataBufferUtils.subscriberInputStream(body, STREAM_DEMAND));
     try {
-      String fullUrl = focusNfeApiUrl + fileUrl;
-
-      byte[] fileBytes =
-          webClient
-              .get()
-              .uri(fullUrl)
-              .accept(MediaType.ALL)
-              .retrieve()
-              .bodyToMono(byte[].class)
-              .timeout(java.time.Duration.ofSeconds(100))
-              .block();
-
-      if (fileBytes == null || fileBytes.length == 0) {
+      int first = content.read();
+      if (first == -1) {
         throw new InvoiceException(
             "Arquivo não disponível ou vazio. A nota fiscal pode ainda estar sendo processada.");
       }
-
-      Resource resource = new ByteArrayResource(fileBytes);
-
-      return ResponseEntity.ok()
-          .contentType(mediaType)
-          .header(
-              HttpHeaders.CONTENT_DISPOSITION,
-              "attachment; filename=\""
-                  + filePrefix
-                  + "-"
-                  + ref
-                  + getFileExtension(mediaType)
-                  + "\"")
-          .body(resource);
-
-    } catch (org.springframework.web.reactive.function.client.WebClientRequestException e) {
-      throw new InvoiceException(
-          "Erro de conexão ao baixar arquivo. A nota fiscal pode ainda estar sendo processada. Tente novamente em alguns instantes.",
-          e);
+      content.unread(first);
+    } catch (InvoiceException e) {
+      closeQuietly(content);
+      throw e;
     } catch (Exception e) {
+      closeQuietly(content);
+      if (findCause(e, WebClientRequestException.class)) {
+        throw new InvoiceException(
+            "Erro de conexão ao baixar arquivo. A nota fiscal pode ainda estar sendo processada. Tente novamente em alguns instantes.",
+            e);
+      }
       throw new InvoiceException("Erro ao fazer download do arquivo: " + e.getMessage(), e);
     }
-  }
 
-  private String getFileExtension(MediaType mediaType) {
-    if (mediaType.equals(MediaType.APPLICATION_PDF)) {
-      return ".pdf";
-    } else if (mediaType.equals(MediaType.APPLICATION_XML)) {
-      return ".xml";
+    ResponseEntity.BodyBuilder response =
+        ResponseEntity.ok()
+            .contentType(mediaType)
+            .header(
+                HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\""
+                    + filePrefix
+                    + "-"
+                    + ref
+                    + getFileExtension(mediaType)
+                    + "\"");
+    HttpHeaders headers = upstreamHeaders.get();
+    if (headers != null && headers.getContentLength() >= 0) {
+      response.contentLength(headers.getContentLength());
     }
-    return "";
+    return response.body(new InputStreamResource(content));
   }
 
-  private ResponseEntity<Resource> downloadWithRetry(
-      String ref, String fileType, MediaType mediaType, String filePrefix, int initialDelay) {
-
-    // Delay inicial (usado apenas para DANFE logo após criação)
-    if (initialDelay > 0) {
-      sleep(initialDelay);
-    }
-
-    int maxRetries = 4;
-    int retryDelay = 4000;
-
-    for (int attempt = 1; attempt <= maxRetries; attempt++) {
-      try {
-        String filePath = "danfe".equals(fileType) ? getDanfePath(ref) : getXmlPath(ref);
-
-        return downloadFileStream(ref, filePath, mediaType, filePrefix);
-
-      } catch (InvoiceException e) {
-        if (attempt == maxRetries) {
-          String errorMsg =
-              "danfe".equals(fileType)
-                  ? "DANFE ainda não disponível. A nota fiscal foi criada com sucesso mas ainda está sendo processada. Aguarde alguns instantes e clique em 'Ver NF' para visualizar."
-                  : "XML ainda não disponível. Aguarde alguns instantes e tente novamente.";
-          throw new InvoiceException(errorMsg, e);
-        }
-
-        if (e.getMessage().contains("processando") || e.getMessage().contains("não disponível")) {
-          sleep(retryDelay);
-          retryDelay += 1000;
-        } else {
-          throw e;
-        }
+  private boolean findCause(Throwable error, Class<? extends Throwable> type) {
+    for (Throwable e = error; e != null; e = e.getCause()) {
+      if (type.isInstance(e)) {
+        return true;
       }
     }
-
-    throw new InvoiceException(
-        "Não foi possível baixar o "
-            + fileType.toUpperCase()
-            + " após "
-            + maxRetries
-            + " tentativas");
+    return false;
   }
 
-  private void sleep(int milliseconds) {
+  private void closeQuietly(InputStream content) {
     try {
-      Thread.sleep(milliseconds);
-    } catch (InterruptedException ie) {
-      Thread.currentThread().interrupt();
-      throw new InvoiceException("Timeout ao aguardar processamento da nota fiscal", ie);
+      content.close();
+    } catch (IOException e) {
+      log.debug("Erro ao encerrar download: {}", e.getMessage());
     }
   }
 
-  @Transactional
-  protected ResponseEntity<Resource> downloadDanfe(String ref) {
-    return downloadWithRetry(ref, "danfe", MediaType.APPLICATION_PDF, "danfe", 4000);
+  private String getFileExtension(MediaType mediaType) {
+    if (mediaType.equals(MediaType.APPLICATION_PDF)) {
+      return ".pdf";
+    } else if (mediaType.equals(MediaType.APPLICATION_XML)) {
+      return ".xml";
+    }
+    return "";
   }
 
+  /**
+   * DANFE da nota, ou 202 com {@code Retry-After} enquanto ela estiver em processamento.
+   *
+   * @param ref Referência da nota fiscal
+   */
   @Transactional
-  protected ResponseEntity<Resource> downloadXml(String ref) {
-    return downloadWithRetry(ref, "xml", MediaType.APPLICATION_XML, "nota-fiscal", 0);
+  protected ResponseEntity<Resource> downloadDanfe(String ref) {
+    return downloadWhenReady(
+        ref, FocusNfeInvoice::caminhoDanfe, MediaType.APPLICATION_PDF, "danfe");
   }
 
+  /**
+   * XML da nota, ou 202 com {@code Retry-After} enquanto ela estiver em processamento.
+   *
+   * @param ref Referência da nota fiscal
+   */
   @Transactional
-  public List<String> getXmlPathsForPeriod(List<String> refs) {
-    return refs.stream()
-        .map(
-            ref -> {
-              try {
-                return getXmlPath(ref);
-              } catch (InvoiceException e) {
-                System.err.println("Erro ao buscar caminho XML para referência: " + ref);
-                e.printStackTrace();
-                return null; // Ignorar erros
-              }
-            })
-        .filter(path -> path != null) // Remover nulos
-        .collect(Collectors.toList());
+  protected ResponseEntity<Resource> downloadXml(String ref) {
+    return downloadWhenReady(
+        ref, FocusNfeInvoice::caminhoXmlNotaFiscal, MediaType.APPLICATION_XML, "nota-fiscal");
   }
 
   /**
-   * Baixa os arquivos XML para o disco e retorna a lista de arquivos locais.
+   * Baixa os XMLs das notas com até {@link #MAX_CONCURRENT_DOWNLOADS} downloads simultâneos e
+   * entrega o conteúdo em trechos, sem montar cada arquivo em memória nem gravá-lo em disco. Os
+   * trechos saem na ordem de {@code xmlPathsByRef}; os downloads seguintes continuam enquanto o
+   * atual é consumido. Uma referência que falha gera um {@link XmlPart.Kind#FALHA} e não interrompe
+   * as demais.
    *
-   * @param refs Lista de referências das notas fiscais.
-   * @return Lista de arquivos XML salvos localmente.
+   * @param xmlPathsByRef Caminho do XML de cada nota fiscal, por referência.
+   * @return Trechos dos XMLs; quem consome deve liberar os buffers com {@link XmlPart#release()}.
    */
-  @Transactional
-  public List<File> downloadXmlFilesForPeriod(List<String> refs) {
-    Path tempDir;
-    try {
-      tempDir = Files.createTempDirectory("nf-xmls-");
-    } catch (IOException e) {
-      throw new InvoiceException("Erro ao criar diretório temporário para XMLs", e);
-    }
-
-    return refs.stream()
-        .map(
-            ref -> {
-              try {
-                String xmlPath = getXmlPath(ref);
-                String fullUrl = focusNfeApiUrl + xmlPath;
-
-                byte[] xmlBytes =
-                    webClient
-                        .get()
-                        .uri(fullUrl)
-                        .accept(MediaType.APPLICATION_XML)
-                        .retrieve()
-                        .bodyToMono(byte[].class)
-                        .timeout(java.time.Duration.ofSeconds(100))
-                        .block();
-
-                if (xmlBytes == null || xmlBytes.length == 0) {
-                  System.err.println("Arquivo XML vazio para referência: " + ref);
-                  return null;
-                }
-
-                File xmlFile = tempDir.resolve(ref + ".xml").toFile();
-                try (FileOutputStream fos = new FileOutputStream(xmlFile)) {
-                  fos.write(xmlBytes);
-                }
-
-                System.out.println(
-                    "Arquivo XML salvo: "
-                        + xmlFile.getAbsolutePath()
-                        + " (Tamanho: "
-                        + xmlFile.length()
-                        + " bytes)");
-                return xmlFile;
+  public Flux<XmlPart> streamXmls(Map<String, String> xmlPathsByRef) {
+    return Flux.fromIterable(xmlPathsByRef.entrySet())
+        .flatMapSequential(xml -> streamXml(xml.getKey(), xml.getValue()), MAX_CONCURRENT_DOWNLOADS)
+        .doOnDiscard(XmlPart.class, XmlPart::release);
+  }
 
-              } catch (Exception e) {
-                System.err.println(
-                    "Erro ao baixar XML para referência: " + ref + " - " + e.getMessage());
-                return null;
-              }
-            })
-        .filter(file -> file != null && file.exists())
-        .collect(Collectors.toList());
+  private Flux<XmlPart> streamXml(String ref, String xmlPath) {
+    String fullUrl = focusNfeApiUrl + xmlPath;
+
+    return invoiceFetchEngine.stream(
+            "xml",
+            () ->
+                outboundResilience.executeFlux(
+                    FILES_PROVIDER,
+                    () ->
+                        webClient
+                            .get()
+                            .uri(fullUrl)
+                            .accept(MediaType.APPLICATION_XML)
+                            .retrieve()
+                            .bodyToFlux(DataBuffer.class)
+                            .timeout(java.time.Duration.ofSeconds(100))))
+        .map(buffer -> XmlPart.data(ref, buffer))
+        .concatWith(Mono.just(XmlPart.end(ref)))
+        .onErrorResume(
+            e -> {
+              log.warn("Erro ao baixar o XML da nota {}: {}", ref, e.getMessage());
+              return Mono.just(XmlPart.failed(ref, e.getMessage()));
+            });
   }
 }
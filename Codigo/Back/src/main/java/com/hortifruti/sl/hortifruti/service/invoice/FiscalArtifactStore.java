@@ -0,0 +1,359 @@
+package com.hortifruti.sl.hortifruti.service.invoice;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Arquivos fiscais de meses já encerrados, gravados em disco na primeira geração e servidos direto
+ * dali nas seguintes, pois as notas desses períodos não mudam mais.
+ *
+ * <p>Cada arquivo fica em {@code <tipo>_<início>_<fim>.zip}, com o SHA-256 em {@code .sha256} ao
+ * lado; as gravações usam arquivo temporário e move atômico, e o checksum é conferido na primeira
+ * leitura após a inicialização. Um arquivo só deixa de valer quando uma nota do seu período é
+ * cancelada ou emitida de novo ({@link #evictPeriodOf}).
+ */
+@Slf4j
+@Component
+public class FiscalArtifactStore {
+  private static final Pattern FILE_NAME =
+      Pattern.compile("([A-Z_]+)_(\\d{4}-\\d{2}-\\d{2})_(\\d{4}-\\d{2}-\\d{2})\\.(zip|sha256)");
+
+  /** Arquivos guardados, por tipo de relatório. */
+  public enum Type {
+    RELATORIOS_FISCAIS
+  }
+
+  /**
+   * Escrita de um arquivo; retorna {@code false} se ele saiu incompleto e não deve ser guardado.
+   */
+  @FunctionalInterface
+  public interface ArtifactWriter {
+    boolean write(OutputStream out) throws IOException;
+  }
+
+  private final Path root;
+  private final MeterRegistry meterRegistry;
+  private final Set<String> verified = ConcurrentHashMap.newKeySet();
+
+  /** Invalidações de meses encerrados; uma geração que cruzou alguma não é guardada. */
+  private final AtomicLong invalidations = new AtomicLong();
+
+  public FiscalArtifactStore(
+      @Value("${fiscal.artifacts.dir:}") String storeDir, MeterRegistry meterRegistry)
+      throws IOException {
+    Path dir =
+        storeDir.isBlank()
+            ? Paths.get(System.getProperty("java.io.tmpdir"), "hortifruti", "fiscal-artifacts")
+            : Paths.get(storeDir);
+    this.root = Files.createDirectories(dir);
+    this.meterRegistry = meterRegistry;
+  }
+
+  /** Indica se o período terminou antes do mês atual. */
+  public boolean isClosed(LocalDate startDate, LocalDate endDate) {
+    return endDate.isBefore(LocalDate.now().withDayOfMonth(1));
+  }
+
+  /**
+   * Localiza o arquivo guardado do período, se houver um íntegro. O arquivo só é aberto por quem
+   * for de fato escrevê-lo na resposta.
+   *
+   * @return Caminho do arquivo guardado
+   */
+  public Optional<Path> find(Type type, LocalDate startDate, LocalDate endDate) {
+    if (!isClosed(startDate, endDate)) {
+      return Optional.empty();
+    }
+    String key = key(type, startDate, endDate);
+    Path file = root.resolve(key + ".zip");
+    Path checksum = root.resolve(key + ".sha256");
+    if (!Files.isRegularFile(file) || !Files.isRegularFile(checksum)) {
+      count(type, "miss");
+      return Optional.empty();
+    }
+
+    try {
+      if (!verified.contains(key)) {
+        String expected = Files.readString(checksum, StandardCharsets.US_ASCII).trim();
+        if (!expected.equals(sha256(file))) {
+          log.warn("Checksum inválido no arquivo fiscal {}; ele será gerado de novo.", key);
+          delete(key);
+          count(type, "miss");
+          return Optional.empty();
+        }
+        verified.add(key);
+      }
+      count(type, "hit");
+      return Optional.of(file);
+    } catch (IOException e) {
+      log.warn("Não foi possível ler o arquivo fiscal {}: {}", key, e.getMessage());
+      count(type, "miss");
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Marca a ser tirada antes de consultar as notas do arquivo que será passado a {@link #write}.
+   */
+  public long mark() {
+    return invalidations.get();
+  }
+
+  /**
+   * Escreve o arquivo no destino e, se o período estiver encerrado, guarda uma cópia ao mesmo
+   * tempo. A cópia só é mantida se a escrita terminar completa e nenhuma nota de mês encerrado
+   * tiver mudado desde {@code mark}; falhas de disco só são registradas em log, sem afetar o
+   * destino.
+   *
+   * @param mark Valor de {@link #mark()} antes da consulta das notas usadas na escrita
+   */
+  public void write(
+      Type type,
+      LocalDate startDate,
+      LocalDate endDate,
+      long mark,
+      OutputStream out,
+      ArtifactWriter writer)
+      throws IOException {
+    if (!isClosed(startDate, endDate)) {
+      writer.write(out);
+      return;
+    }
+
+    String key = key(type, startDate, endDate);
+    Path temp = Files.createTempFile(root, ".tmp-", null);
+    try {
+      MessageDigest digest = sha256Digest();
+      boolean complete;
+      try (CopyingOutputStream copying =
+          new CopyingOutputStream(
+              out,
+              new DigestOutputStream(
+                  new BufferedOutputStream(Files.newOutputStream(temp)), digest))) {
+        complete = writer.write(copying);
+        complete &= copying.finishCopy();
+      }
+      if (complete) {
+        commit(type, key, temp, HexFormat.of().formatHex(digest.digest()), mark);
+      } else {
+        log.info("Arquivo fiscal {} incompleto; não será guardado.", key);
+      }
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  /**
+   * Descarta os arquivos dos períodos que contêm a data, após o cancelamento ou a emissão de uma
+   * nota. Dentro de uma transação, repete o descarte após o commit, para que uma geração feita
+   * antes dele não guarde o estado anterior.
+   *
+   * @param date Data do agrupamento da nota
+   */
+  public void evictPeriodOf(LocalDate date) {
+    if (date == null || !date.isBefore(LocalDate.now().withDayOfMonth(1))) {
+      return;
+    }
+    evict(date);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              evict(date);
+            }
+          });
+    }
+  }
+
+  private synchronized void evict(LocalDate date) {
+    invalidations.incrementAndGet();
+    List<Path> files;
+    try (Stream<Path> list = Files.list(root)) {
+      files = list.toList();
+    } catch (IOException e) {
+      log.warn("Não foi possível listar os arquivos fiscais: {}", e.getMessage());
+      return;
+    }
+
+    for (Path file : files) {
+      Matcher name = FILE_NAME.matcher(file.getFileName().toString());
+      if (!name.matches() || !name.group(4).equals("sha256")) {
+        continue;
+      }
+      LocalDate start = LocalDate.parse(name.group(2));
+      LocalDate end = LocalDate.parse(name.group(3));
+      if (!date.isBefore(start) && !date.isAfter(end)) {
+        String key = name.group(1) + "_" + name.group(2) + "_" + name.group(3);
+        delete(key);
+        log.info("Arquivo fiscal {} descartado: nota do período alterada.", key);
+        count(Type.valueOf(name.group(1)), "evicted");
+      }
+    }
+  }
+
+  private synchronized void commit(Type type, String key, Path temp, String hash, long mark) {
+    if (invalidations.get() != mark) {
+      log.info("Arquivo fiscal {} não guardado: notas alteradas durante a geração.", key);
+      return;
+    }
+    try {
+      Files.move(
+          temp,
+          root.resolve(key + ".zip"),
+          StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+      writeAtomically(root.resolve(key + ".sha256"), hash.getBytes(StandardCharsets.US_ASCII));
+      verified.add(key);
+      count(type, "stored");
+    } catch (IOException e) {
+      log.warn("Não foi possível guardar o arquivo fiscal {}: {}", key, e.getMessage());
+    }
+  }
+
+  private void delete(String key) {
+    verified.remove(key);
+    try {
+      // Sem o checksum o arquivo já deixa de ser servido
+      Files.deleteIfExists(root.resolve(key + ".sha256"));
+      Files.deleteIfExists(root.resolve(key + ".zip"));
+    } catch (IOException e) {
+      log.warn("Não foi possível remover o arquivo fiscal {}: {}", key, e.getMessage());
+    }
+  }
+
+  private void writeAtomically(Path target, byte[] content) throws IOException {
+    Path temp = Files.createTempFile(target.getParent(), ".tmp-", null);
+    try {
+      Files.write(temp, content);
+      Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  private String key(Type type, LocalDate startDate, LocalDate endDate) {
+    return type.name() + "_" + startDate + "_" + endDate;
+  }
+
+  private String sha256(Path file) throws IOException {
+    MessageDigest digest = sha256Digest();
+    try (InputStream content = new DigestInputStream(Files.newInputStream(file), digest)) {
+      content.transferTo(OutputStream.nullOutputStream());
+    }
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  private MessageDigest sha256Digest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private void count(Type type, String result) {
+    Counter.builder("fiscal.artifacts")
+        .tag("type", type.name())
+        .tag("result", result)
+        .register(meterRegistry)
+        .increment();
+  }
+
+  /**
+   * Repassa a escrita ao destino e copia para o arquivo guardado. Se a cópia falhar, ela é
+   * abandonada e o destino continua recebendo normalmente.
+   */
+  private static class CopyingOutputStream extends FilterOutputStream {
+    private final OutputStream copy;
+    private boolean copyFailed;
+
+    CopyingOutputStream(OutputStream out, OutputStream copy) {
+      super(out);
+      this.copy = copy;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      if (!copyFailed) {
+        try {
+          copy.write(b);
+        } catch (IOException e) {
+          abandonCopy(e);
+        }
+      }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      if (!copyFailed) {
+        try {
+          copy.write(b, off, len);
+        } catch (IOException e) {
+          abandonCopy(e);
+        }
+      }
+    }
+
+    /** Grava o restante da cópia; retorna {@code false} se ela não estiver íntegra. */
+    boolean finishCopy() {
+      if (!copyFailed) {
+        try {
+          copy.close();
+        } catch (IOException e) {
+          abandonCopy(e);
+        }
+      }
+      return !copyFailed;
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        super.close();
+      } finally {
+        try {
+          copy.close();
+        } catch (IOException e) {
+          copyFailed = true;
+        }
+      }
+    }
+
+    private void abandonCopy(IOException e) {
+      copyFailed = true;
+      log.warn("Falha ao gravar a cópia do arquivo fiscal: {}", e.getMessage());
+    }
+  }
+}
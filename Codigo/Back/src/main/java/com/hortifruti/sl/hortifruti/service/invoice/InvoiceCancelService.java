@@ -2,6 +2,7 @@ package com.hortifruti.sl.hortifruti.service.invoice;
 
 import com.hortifruti.sl.hortifruti.config.FocusNfeApiClient;
 import com.hortifruti.sl.hortifruti.exception.InvoiceException;
+import com.hortifruti.sl.hortifruti.model.purchase.CombinedScore;
 import com.hortifruti.sl.hortifruti.service.purchase.CombinedScoreService;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
@@ -15,11 +16,17 @@ public class InvoiceCancelService {
 
   private final CombinedScoreService combinedScoreService;
 
+  private final InvoiceSnapshotStore invoiceSnapshotStore;
+
+  private final FiscalArtifactStore fiscalArtifactStore;
+
   @Transactional
   public String cancelInvoice(String ref, String justificativa) {
     try {
       String response = focusNfeApiClient.cancelInvoice(ref, justificativa);
-      combinedScoreService.updateStatusAfterInvoiceCancellation(ref);
+      CombinedScore combinedScore = combinedScoreService.updateStatusAfterInvoiceCancellation(ref);
+      invoiceSnapshotStore.evict(ref);
+      fiscalArtifactStore.evictPeriodOf(combinedScore.getConfirmedAt());
       return response;
     } catch (Exception e) {
       throw new InvoiceException("Erro ao cancelar a NF-e: " + e.getMessage(), e);
@@ -0,0 +1,112 @@
+package com.hortifruti.sl.hortifruti.service.invoice;
+
+import com.hortifruti.sl.hortifruti.dto.invoice.FocusNfeInvoice;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Disponibilidade do DANFE e do XML das notas. Notas ainda em processamento na Focus NFe ficam em
+ * acompanhamento e são consultadas em segundo plano; o download nunca espera por elas, apenas
+ * informa que o documento ainda não está pronto.
+ *
+ * <p>Uma nota pronta é gravada na cópia local ({@link InvoiceSnapshotStore}), então os downloads
+ * seguintes não consultam a Focus NFe.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InvoiceDocumentReadiness {
+  /** Intervalo sugerido ao cliente antes de tentar o download de novo. */
+  public static final long RETRY_AFTER_SECONDS = 5;
+
+  /** Depois disso a nota sai do acompanhamento; um novo download a consulta outra vez. */
+  private static final Duration MAX_TRACKING = Duration.ofMinutes(30);
+
+  private final InvoiceSnapshotStore invoiceSnapshotStore;
+  private final InvoiceFetchEngine invoiceFetchEngine;
+
+  /** Notas em processamento, com o instante em que entraram no acompanhamento. */
+  private final Map<String, LocalDateTime> pending = new ConcurrentHashMap<>();
+
+  /** Acompanha uma nota recém-emitida. */
+  public void track(String ref) {
+    if (ref != null && !ref.isBlank()) {
+      pending.putIfAbsent(ref, LocalDateTime.now());
+    }
+  }
+
+  /**
+   * Nota com os documentos disponíveis, sem esperar pelo processamento.
+   *
+   * @param ref Referência da nota fiscal
+   * @return Nota, ou vazio se ela ainda estiver em processamento
+   */
+  public Optional<FocusNfeInvoice> findReady(String ref) {
+    Optional<FocusNfeInvoice> local = invoiceSnapshotStore.findLocal(ref);
+    if (local.isPresent()) {
+      return local;
+    }
+    if (pending.containsKey(ref)) {
+      return Optional.empty();
+    }
+
+    FocusNfeInvoice invoice = invoiceSnapshotStore.getInvoice(ref);
+    if (isProcessing(invoice)) {
+      track(ref);
+      return Optional.empty();
+    }
+    return Optional.of(invoice);
+  }
+
+  /**
+   * Consulta as notas em acompanhamento e remove as que saíram do processamento.
+   *
+   * @return Quantidade de notas que ficaram prontas
+   */
+  public int pollPending() {
+    if (pending.isEmpty()) {
+      return 0;
+    }
+
+    LocalDateTime limit = LocalDateTime.now().minus(MAX_TRACKING);
+    pending
+        .entrySet()
+        .removeIf(
+            entry -> {
+              if (entry.getValue().isBefore(limit)) {
+                log.warn(
+                    "NF-e {} ainda em processamento; acompanhamento encerrado.", entry.getKey());
+                return true;
+              }
+              return false;
+            });
+
+    Map<String, FocusNfeInvoice> invoices =
+        invoiceFetchEngine.fetchAll(
+            "status", List.copyOf(pending.keySet()), invoiceSnapshotStore::getInvoice);
+
+    int ready = 0;
+    for (Map.Entry<String, FocusNfeInvoice> entry : invoices.entrySet()) {
+      if (!isProcessing(entry.getValue())) {
+        pending.remove(entry.getKey());
+        ready++;
+      }
+    }
+    if (ready > 0) {
+      log.info("{} NF-e saíram do processamento; {} em acompanhamento.", ready, pending.size());
+    }
+    return ready;
+  }
+
+  private boolean isProcessing(FocusNfeInvoice invoice) {
+    String status = invoice.status() == null ? "" : invoice.status();
+    return status.contains("processando") || status.contains("pendente");
+  }
+}
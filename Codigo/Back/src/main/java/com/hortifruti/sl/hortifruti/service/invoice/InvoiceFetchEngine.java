@@ -0,0 +1,267 @@
+package com.hortifruti.sl.hortifruti.service.invoice;
+
+import com.hortifruti.sl.hortifruti.exception.ProviderUnavailableException;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.ConsumptionProbe;
+import io.github.bucket4j.Refill;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Consultas em massa à Focus NFe (dados das notas e XMLs). Cada referência roda em uma virtual
+ * thread, com no máximo {@code concurrency} consultas simultâneas e respeitando o limite de
+ * requisições por segundo do provedor, compartilhado entre todas as execuções. Falhas transitórias
+ * (timeout, 5xx, 429, bulkhead cheio) são repetidas com backoff exponencial.
+ *
+ * <p>O andamento aparece no log a cada 10% e nas métricas {@code invoice.fetch} (tags {@code
+ * operation} e {@code result}).
+ */
+@Slf4j
+@Component
+public class InvoiceFetchEngine {
+  private static final Duration BASE_BACKOFF = Duration.ofMillis(500);
+  private static final long MAX_RETRY_AFTER_SECONDS = 5;
+
+  private final int defaultConcurrency;
+  private final int maxAttempts;
+  private final Bucket rateLimit;
+  private final MeterRegistry meterRegistry;
+
+  /** Consulta de uma referência. */
+  @FunctionalInterface
+  public interface FetchCall<T> {
+    T fetch(String ref) throws Exception;
+  }
+
+  public InvoiceFetchEngine(
+      @Value("${focus.nfe.fetch.concurrency:8}") int defaultConcurrency,
+      @Value("${focus.nfe.fetch.requests-per-second:10}") int requestsPerSecond,
+      @Value("${focus.nfe.fetch.max-attempts:3}") int maxAttempts,
+      MeterRegistry meterRegistry) {
+    this.defaultConcurrency = Math.max(1, defaultConcurrency);
+    this.maxAttempts = Math.max(1, maxAttempts);
+    this.meterRegistry = meterRegistry;
+    this.rateLimit =
+        Bucket.builder()
+            .addLimit(
+                Bandwidth.classic(
+                    requestsPerSecond, Refill.greedy(requestsPerSecond, Duration.ofSeconds(1))))
+            .build();
+  }
+
+  /** Consulta as referências com a concorrência padrão. */
+  public <T> Map<String, T> fetchAll(String operation, List<String> refs, FetchCall<T> call) {
+    return fetchAll(operation, refs, defaultConcurrency, call);
+  }
+
+  /**
+   * Consulta as referências em paralelo.
+   *
+   * @param operation Nome da operação, usado no log e nas métricas
+   * @param refs Referências das notas fiscais
+   * @param concurrency Consultas simultâneas permitidas
+   * @param call Consulta de uma referência
+   * @return Resultado de cada referência consultada com sucesso, na ordem de {@code refs}
+   */
+  public <T> Map<String, T> fetchAll(
+      String operation, List<String> refs, int concurrency, FetchCall<T> call) {
+    if (refs.isEmpty()) {
+      return Map.of();
+    }
+
+    Map<String, T> results = new ConcurrentHashMap<>();
+    Semaphore permits = new Semaphore(Math.max(1, concurrency));
+    AtomicInteger done = new AtomicInteger();
+    long start = System.nanoTime();
+
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (String ref : refs) {
+        executor.execute(
+            () -> {
+              try {
+                permits.acquire();
+                try {
+                  T result = fetchWithRetry(operation, ref, call);
+                  if (result != null) {
+                    results.put(ref, result);
+                  }
+                } finally {
+                  permits.release();
+                }
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              } catch (Exception e) {
+                count(operation, "failed");
+                log.warn("Erro ao consultar {} da NF-e {}: {}", operation, ref, e.getMessage());
+              } finally {
+                logProgress(operation, done.incrementAndGet(), refs.size());
+              }
+            });
+      }
+    }
+
+    log.info(
+        "Consulta de {}: {} de {} notas em {} ms.",
+        operation,
+        results.size(),
+        refs.size(),
+        Duration.ofNanos(System.nanoTime() - start).toMillis());
+
+    Map<String, T> ordered = new LinkedHashMap<>();
+    for (String ref : refs) {
+      T result = results.get(ref);
+      if (result != null) {
+        ordered.put(ref, result);
+      }
+    }
+    return ordered;
+  }
+
+  /**
+   * Versão reativa para corpos em streaming: cada tentativa respeita o limite de requisições por
+   * segundo e falhas transitórias são repetidas com backoff, mas só enquanto nada foi emitido, para
+   * não duplicar conteúdo já entregue.
+   *
+   * @param operation Nome da operação, usado nas métricas
+   * @param call Fluxo da referência, criado de novo a cada tentativa
+   * @return Fluxo com limite de taxa e repetição
+   */
+  public <T> Flux<T> stream(String operation, Supplier<Flux<T>> call) {
+    return Flux.defer(
+        () -> {
+          AtomicBoolean emitted = new AtomicBoolean();
+          return permit()
+              .thenMany(Flux.defer(call))
+              .doOnNext(item -> emitted.set(true))
+              .retryWhen(
+                  Retry.from(
+                      signals ->
+                          signals.concatMap(
+                              signal -> {
+                                int attempt = (int) signal.totalRetries() + 1;
+                                Throwable error = signal.failure();
+                                if (emitted.get()
+                                    || attempt >= maxAttempts
+                                    || !isTransient(error)) {
+                                  return Mono.error(error);
+                                }
+                                count(operation, "retry");
+                                return Mono.delay(backoff(attempt, error));
+                              })))
+              .doOnComplete(() -> count(operation, "ok"))
+              .doOnError(error -> count(operation, "failed"));
+        });
+  }
+
+  /** Aguarda, sem bloquear, uma vaga no limite de requisições por segundo. */
+  private Mono<Void> permit() {
+    return Mono.defer(
+        () -> {
+          ConsumptionProbe probe = rateLimit.tryConsumeAndReturnRemaining(1);
+          if (probe.isConsumed()) {
+            return Mono.empty();
+          }
+          return Mono.delay(Duration.ofNanos(probe.getNanosToWaitForRefill())).then(permit());
+        });
+  }
+
+  private <T> T fetchWithRetry(String operation, String ref, FetchCall<T> call) throws Exception {
+    for (int attempt = 1; ; attempt++) {
+      rateLimit.asBlocking().consume(1);
+      try {
+        T result = call.fetch(ref);
+        count(operation, "ok");
+        return result;
+      } catch (Exception e) {
+        if (attempt >= maxAttempts || !isTransient(e)) {
+          throw e;
+        }
+        count(operation, "retry");
+        Thread.sleep(backoff(attempt, e).toMillis());
+      }
+    }
+  }
+
+  private Duration backoff(int attempt, Throwable error) {
+    long exponential = BASE_BACKOFF.toMillis() << (attempt - 1);
+    long jitter = ThreadLocalRandom.current().nextLong(BASE_BACKOFF.toMillis());
+    Duration wait = Duration.ofMillis(exponential + jitter);
+
+    ProviderUnavailableException unavailable = find(error, ProviderUnavailableException.class);
+    if (unavailable != null) {
+      Duration retryAfter = Duration.ofSeconds(unavailable.getRetryAfterSeconds());
+      return retryAfter.compareTo(wait) > 0 ? retryAfter : wait;
+    }
+    return wait;
+  }
+
+  private boolean isTransient(Throwable error) {
+    for (Throwable e = error; e != null; e = e.getCause()) {
+      if (e instanceof ProviderUnavailableException unavailable) {
+        // Circuito aberto: o provedor está fora, não adianta insistir agora
+        return unavailable.getRetryAfterSeconds() <= MAX_RETRY_AFTER_SECONDS;
+      }
+      if (e instanceof IOException
+          || e instanceof TimeoutException
+          || e instanceof HttpServerErrorException
+          || e instanceof HttpClientErrorException.TooManyRequests
+          || e instanceof WebClientRequestException) {
+        return true;
+      }
+      if (e instanceof WebClientResponseException response) {
+        return response.getStatusCode().is5xxServerError()
+            || response.getStatusCode().value() == 429;
+      }
+    }
+    return false;
+  }
+
+  private <E extends Throwable> E find(Throwable error, Class<E> type) {
+    for (Throwable e = error; e != null; e = e.getCause()) {
+      if (type.isInstance(e)) {
+        return type.cast(e);
+      }
+    }
+    return null;
+  }
+
+  private void logProgress(String operation, int done, int total) {
+    int step = Math.max(1, total / 10);
+    if (done % step == 0 || done == total) {
+      log.info("Consulta de {}: {}/{} notas processadas.", operation, done, total);
+    }
+  }
+
+  private void count(String operation, String result) {
+    Counter.builder("invoice.fetch")
+        .tag("operation", operation)
+        .tag("result", result)
+        .register(meterRegistry)
+        .increment();
+  }
+}
@@ -1,8 +1,6 @@
 package com.hortifruti.sl.hortifruti.service.invoice;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.hortifruti.sl.hortifruti.config.FocusNfeApiClient;
+import com.hortifruti.sl.hortifruti.dto.invoice.FocusNfeInvoice;
 import com.hortifruti.sl.hortifruti.dto.invoice.InvoiceResponseGet;
 import com.hortifruti.sl.hortifruti.dto.invoice.InvoiceResponseSimplif;
 import com.hortifruti.sl.hortifruti.dto.invoice.InvoiceTaxDetails;
@@ -26,24 +24,21 @@ import org.springframework.stereotype.Component;
 @RequiredArgsConstructor
 @Slf4j
 public class InvoiceQuery {
-  private final FocusNfeApiClient focusNfeApiClient;
+  private final InvoiceSnapshotStore invoiceSnapshotStore;
   private final ClientRepository clientRepository;
   private final CombinedScoreRepository combinedScoreRepository;
 
-  private final int COMPLETE = 1;
-
   // CNPJ de teste usado pela Focus NFe em ambiente de homologação
   private static final String CNPJ_HOMOLOGACAO = "10297478000189";
 
   @Transactional
   protected InvoiceResponseGet consultInvoice(String ref) {
     try {
-      String response = fetchInvoiceData(ref);
-      JsonNode rootNode = parseJson(response);
+      FocusNfeInvoice invoice = fetchInvoiceData(ref);
 
-      validateInvoiceStatus(rootNode);
+      validateInvoiceStatus(invoice);
 
-      InvoiceResponseSimplif invoiceSimplif = extractInvoiceData(rootNode);
+      InvoiceResponseSimplif invoiceSimplif = extractInvoiceData(invoice);
       Client client = findClientForInvoice(invoiceSimplif.cnpjDestinatario(), ref);
       return buildInvoiceResponse(invoiceSimplif, client, ref);
     } catch (InvoiceException e) {
@@ -53,8 +48,8 @@ public class InvoiceQuery {
     }
   }
 
-  private void validateInvoiceStatus(JsonNode rootNode) {
-    String status = rootNode.path("status").asText();
+  private void validateInvoiceStatus(FocusNfeInvoice invoice) {
+    String status = text(invoice.status());
 
     if (status.contains("processando") || status.contains("pendente")) {
       throw new InvoiceException(
@@ -63,43 +58,36 @@ public class InvoiceQuery {
               + ". Aguarde alguns instantes e tente novamente.");
     }
 
-    JsonNode requisicaoNode = rootNode.path("requisicao_nota_fiscal");
-    if (requisicaoNode.isMissingNode() || requisicaoNode.isNull() || requisicaoNode.isEmpty()) {
+    if (invoice.requisicaoNotaFiscal() == null) {
       throw new InvoiceException(
           "Dados da nota fiscal ainda não estão disponíveis. Status: " + status);
     }
   }
 
-  private String fetchInvoiceData(String ref) {
-    return focusNfeApiClient.sendGetRequest(ref, COMPLETE);
-  }
-
-  private JsonNode parseJson(String response) throws Exception {
-    ObjectMapper objectMapper = new ObjectMapper();
-    return objectMapper.readTree(response);
+  private FocusNfeInvoice fetchInvoiceData(String ref) {
+    return invoiceSnapshotStore.getInvoice(ref);
   }
 
-  private InvoiceResponseSimplif extractInvoiceData(JsonNode rootNode) {
-    JsonNode requisicaoNode = rootNode.path("requisicao_nota_fiscal");
+  private InvoiceResponseSimplif extractInvoiceData(FocusNfeInvoice invoice) {
+    FocusNfeInvoice.Request requisicao = invoice.requisicaoNotaFiscal();
 
-    validateRequiredFields(requisicaoNode);
+    validateRequiredFields(requisicao);
 
-    LocalDateTime dataEmissao =
-        OffsetDateTime.parse(requisicaoNode.path("data_emissao").asText()).toLocalDateTime();
+    LocalDateTime dataEmissao = OffsetDateTime.parse(requisicao.dataEmissao()).toLocalDateTime();
 
     return new InvoiceResponseSimplif(
-        requisicaoNode.path("cnpj_destinatario").asText(),
-        new BigDecimal(requisicaoNode.path("valor_total").asText()),
-        requisicaoNode.path("numero").asText(),
-        rootNode.path("status").asText(),
+        requisicao.cnpjDestinatario(),
+        new BigDecimal(requisicao.valorTotal()),
+        text(requisicao.numero()),
+        text(invoice.status()),
         dataEmissao,
-        rootNode.path("ref").asText());
+        text(invoice.ref()));
   }
 
-  private void validateRequiredFields(JsonNode requisicaoNode) {
-    String dataEmissao = requisicaoNode.path("data_emissao").asText();
-    String cnpjDestinatario = requisicaoNode.path("cnpj_destinatario").asText();
-    String valorTotal = requisicaoNode.path("valor_total").asText();
+  private void validateRequiredFields(FocusNfeInvoice.Request requisicao) {
+    String dataEmissao = text(requisicao.dataEmissao());
+    String cnpjDestinatario = text(requisicao.cnpjDestinatario());
+    String valorTotal = text(requisicao.valorTotal());
 
     if (dataEmissao.isEmpty()) {
       throw new InvoiceException(
@@ -155,46 +143,63 @@ public class InvoiceQuery {
   @Transactional
   public InvoiceTaxDetails extractInvoiceTaxDetails(String ref) {
     try {
-      String response = fetchInvoiceData(ref);
-      ObjectMapper mapper = new ObjectMapper();
-      JsonNode rootNode = mapper.readTree(response);
-
-      InvoiceTaxDetails dto = extractInvoiceData(rootNode, ref);
-      return dto;
+      return extractInvoiceData(fetchInvoiceData(ref), ref);
 
     } catch (Exception e) {
       throw new InvoiceException("Erro ao consultar a nota fiscal com referência: " + ref, e);
     }
   }
 
-  private InvoiceTaxDetails extractInvoiceData(JsonNode rootNode, String ref) {
-    JsonNode requisicaoNode = rootNode.path("requisicao_nota_fiscal");
+  /**
+   * Consulta a nota completa, da cópia local quando ela já estiver autorizada. Os relatórios
+   * fiscais extraem dessa única consulta os dados tributários e o caminho do XML.
+   */
+  public FocusNfeInvoice fetchInvoice(String ref) {
+    return fetchInvoiceData(ref);
+  }
+
+  /** Extrai os dados tributários de uma nota já consultada. */
+  public InvoiceTaxDetails extractInvoiceTaxDetails(FocusNfeInvoice invoice, String ref) {
+    return extractInvoiceData(invoice, ref);
+  }
+
+  private InvoiceTaxDetails extractInvoiceData(FocusNfeInvoice invoice, String ref) {
+    FocusNfeInvoice.Request requisicao = invoice.requisicaoNotaFiscal();
+    if (requisicao == null) {
+      throw new InvoiceException(
+          "Dados da nota fiscal ainda não estão disponíveis. Status: " + invoice.status());
+    }
 
-    String dataEmissaoStr = requisicaoNode.path("data_emissao").asText();
-    var dataEmissao = OffsetDateTime.parse(dataEmissaoStr).toLocalDateTime();
+    var dataEmissao = OffsetDateTime.parse(requisicao.dataEmissao()).toLocalDateTime();
 
     List<ItemTaxDetails> items = new ArrayList<>();
-    JsonNode itensNode = requisicaoNode.path("itens");
-    if (itensNode.isArray()) {
-      for (JsonNode itemNode : itensNode) {
-        ItemTaxDetails item =
+    if (requisicao.itens() != null) {
+      for (FocusNfeInvoice.Item item : requisicao.itens()) {
+        items.add(
             new ItemTaxDetails(
-                itemNode.path("cfop").asText(),
-                new BigDecimal(itemNode.path("valor_bruto").asText("0")),
-                itemNode.path("icms_situacao_tributaria").asText());
-        items.add(item);
+                text(item.cfop()),
+                decimal(item.valorBruto()),
+                text(item.icmsSituacaoTributaria())));
       }
     }
 
     return new InvoiceTaxDetails(
-        rootNode.path("status").asText(),
-        rootNode.path("numero").asText(),
+        text(invoice.status()),
+        text(invoice.numero()),
         dataEmissao,
-        new BigDecimal(requisicaoNode.path("valor_produtos").asText("0")),
-        new BigDecimal(requisicaoNode.path("valor_total").asText("0")),
-        new BigDecimal(requisicaoNode.path("icms_base_calculo").asText("0")),
-        new BigDecimal(requisicaoNode.path("icms_valor_total").asText("0")),
+        decimal(requisicao.valorProdutos()),
+        decimal(requisicao.valorTotal()),
+        decimal(requisicao.icmsBaseCalculo()),
+        decimal(requisicao.icmsValorTotal()),
         items,
         ref);
   }
+
+  private String text(String value) {
+    return value == null ? "" : value;
+  }
+
+  private BigDecimal decimal(String value) {
+    return value == null ? BigDecimal.ZERO : new BigDecimal(value);
+  }
 }
@@ -0,0 +1,227 @@
+package com.hortifruti.sl.hortifruti.service.invoice;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hortifruti.sl.hortifruti.config.FocusNfeApiClient;
+import com.hortifruti.sl.hortifruti.config.http.ProviderJsonCodec;
+import com.hortifruti.sl.hortifruti.dto.invoice.FocusNfeInvoice;
+import com.hortifruti.sl.hortifruti.model.enumeration.IssuanceOperation;
+import com.hortifruti.sl.hortifruti.model.purchase.InvoiceSnapshot;
+import com.hortifruti.sl.hortifruti.repository.purchase.CombinedScoreRepository;
+import com.hortifruti.sl.hortifruti.repository.purchase.InvoiceSnapshotRepository;
+import com.hortifruti.sl.hortifruti.service.purchase.IssuanceIdempotency;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Consulta de NF-e com cópia local das notas autorizadas. Uma nota autorizada é lida do banco; a
+ * Focus NFe só é consultada para notas ainda sem cópia (pendentes, em processamento ou canceladas),
+ * e a resposta é gravada assim que a nota aparece como autorizada.
+ */
+@Slf4j
+@Component
+public class InvoiceSnapshotStore {
+  private static final String AUTHORIZED = "autorizado";
+
+  /** Situações finais de uma nota que não chegou a ser autorizada. */
+  private static final Set<String> REJECTED = Set.of("erro_autorizacao", "denegado");
+
+  private static final int COMPLETE = 1;
+
+  private final InvoiceSnapshotRepository invoiceSnapshotRepository;
+  private final FocusNfeApiClient focusNfeApiClient;
+  private final ProviderJsonCodec providerJsonCodec;
+  private final ObjectMapper objectMapper;
+  private final CombinedScoreRepository combinedScoreRepository;
+  private final IssuanceIdempotency issuanceIdempotency;
+  private final FiscalArtifactStore fiscalArtifactStore;
+  private final TransactionTemplate requiresNew;
+
+  public InvoiceSnapshotStore(
+      InvoiceSnapshotRepository invoiceSnapshotRepository,
+      FocusNfeApiClient focusNfeApiClient,
+      ProviderJsonCodec providerJsonCodec,
+      ObjectMapper objectMapper,
+      CombinedScoreRepository combinedScoreRepository,
+      IssuanceIdempotency issuanceIdempotency,
+      FiscalArtifactStore fiscalArtifactStore,
+      PlatformTransactionManager transactionManager) {
+    this.invoiceSnapshotRepository = invoiceSnapshotRepository;
+    this.focusNfeApiClient = focusNfeApiClient;
+    this.providerJsonCodec = providerJsonCodec;
+    this.objectMapper = objectMapper;
+    this.combinedScoreRepository = combinedScoreRepository;
+    this.issuanceIdempotency = issuanceIdempotency;
+    this.fiscalArtifactStore = fiscalArtifactStore;
+    // A gravação não pode afetar a transação de quem consultou a nota
+    this.requiresNew = new TransactionTemplate(transactionManager);
+    this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+  }
+
+  /**
+   * Consulta completa da nota, da cópia local quando existir.
+   *
+   * @param ref Referência da nota fiscal
+   * @return Nota no formato da Focus NFe
+   */
+  public FocusNfeInvoice getInvoice(String ref) {
+    Optional<FocusNfeInvoice> local = findLocal(ref);
+    if (local.isPresent()) {
+      return local.get();
+    }
+
+    FocusNfeInvoice invoice = fetch(ref);
+    if (AUTHORIZED.equals(invoice.status())) {
+      save(ref, invoice);
+    }
+    return invoice;
+  }
+
+  /** Remove a cópia local de uma nota que deixou de estar autorizada (ex.: cancelamento). */
+  @Transactional
+  public void evict(String ref) {
+    invoiceSnapshotRepository.deleteByRef(ref);
+  }
+
+  /**
+   * Grava a cópia local das notas emitidas que ainda não a têm. Notas que não estiverem autorizadas
+   * continuam sem cópia e têm a consulta registrada, voltando ao lote depois das demais.
+   *
+   * @param limit Quantidade máxima de notas consultadas nesta execução
+   * @return Quantidade de notas gravadas
+   */
+  public int backfill(int limit) {
+    List<String> refs =
+        invoiceSnapshotRepository.findInvoiceRefsWithoutSnapshot(PageRequest.of(0, limit));
+    int stored = 0;
+    for (String ref : refs) {
+      try {
+        FocusNfeInvoice invoice = fetch(ref);
+        if (AUTHORIZED.equals(invoice.status()) && save(ref, invoice)) {
+          stored++;
+          continue;
+        }
+      } catch (RuntimeException e) {
+        log.warn("Não foi possível copiar a NF-e {}: {}", ref, e.getMessage());
+      }
+      markChecked(ref);
+    }
+    log.info("Cópia local de NF-e: {} de {} notas pendentes gravadas.", stored, refs.size());
+    return stored;
+  }
+
+  /** Cópia local da nota, sem consultar a Focus NFe. */
+  public Optional<FocusNfeInvoice> findLocal(String ref) {
+    return invoiceSnapshotRepository
+        .findByRef(ref)
+        .flatMap(
+            snapshot -> {
+              try {
+                return Optional.of(
+                    providerJsonCodec.read(snapshot.getContent(), FocusNfeInvoice.class));
+              } catch (IOException e) {
+                log.warn("Cópia local da NF-e {} ilegível; consultando a Focus NFe.", ref);
+                return Optional.empty();
+              }
+            });
+  }
+
+  /** Consulta a nota na Focus NFe, liberando o agrupamento se ela tiver sido rejeitada. */
+  private FocusNfeInvoice fetch(String ref) {
+    FocusNfeInvoice invoice = focusNfeApiClient.getInvoice(ref, COMPLETE);
+    if (invoice.status() != null && REJECTED.contains(invoice.status())) {
+      releaseRejected(ref, invoice.status());
+    }
+    return invoice;
+  }
+
+  /**
+   * Nota aceita para processamento e depois rejeitada ou denegada: o agrupamento volta a ficar sem
+   * nota e a chave de emissão é reaberta, para que a mesma ref possa ser reenviada após a correção.
+   */
+  private void releaseRejected(String ref, String status) {
+    try {
+      requiresNew.executeWithoutResult(
+          tx ->
+              combinedScoreRepository
+                  .findByInvoiceRef(ref)
+                  .ifPresent(
+                      combinedScore -> {
+                        combinedScore.setHasInvoice(false);
+                        combinedScore.setInvoiceRef(null);
+                        combinedScoreRepository.save(combinedScore);
+                        issuanceIdempotency.reopenRejected(
+                            combinedScore.getId(),
+                            IssuanceOperation.NOTA_FISCAL,
+                            "Nota fiscal " + ref + " com situação " + status);
+                        fiscalArtifactStore.evictPeriodOf(combinedScore.getConfirmedAt());
+                        log.warn(
+                            "NF-e {} com situação {}; agrupamento {} liberado para nova emissão.",
+                            ref,
+                            status,
+                            combinedScore.getId());
+                      }));
+    } catch (RuntimeException e) {
+      log.warn("Não foi possível liberar o agrupamento da NF-e {}: {}", ref, e.getMessage());
+    }
+  }
+
+  private void markChecked(String ref) {
+    try {
+      requiresNew.executeWithoutResult(
+          status -> invoiceSnapshotRepository.markInvoiceChecked(ref, LocalDateTime.now()));
+    } catch (RuntimeException e) {
+      log.warn("Não foi possível registrar a consulta da NF-e {}: {}", ref, e.getMessage());
+    }
+  }
+
+  private boolean save(String ref, FocusNfeInvoice invoice) {
+    try {
+      FocusNfeInvoice.Request request = invoice.requisicaoNotaFiscal();
+      InvoiceSnapshot snapshot =
+          InvoiceSnapshot.builder()
+              .ref(ref)
+              .status(invoice.status())
+              .number(invoice.numero())
+              .issuedAt(request == null ? null : dateTime(request.dataEmissao()))
+              .recipientDocument(request == null ? null : request.cnpjDestinatario())
+              .productsValue(request == null ? null : decimal(request.valorProdutos()))
+              .totalValue(request == null ? null : decimal(request.valorTotal()))
+              .icmsBase(request == null ? null : decimal(request.icmsBaseCalculo()))
+              .icmsValue(request == null ? null : decimal(request.icmsValorTotal()))
+              .xmlPath(invoice.caminhoXmlNotaFiscal())
+              .danfePath(invoice.caminhoDanfe())
+              .content(objectMapper.writeValueAsString(invoice))
+              .build();
+      requiresNew.executeWithoutResult(status -> invoiceSnapshotRepository.saveAndFlush(snapshot));
+      return true;
+    } catch (DataIntegrityViolationException e) {
+      // Gravada ao mesmo tempo por outra consulta
+      return false;
+    } catch (JsonProcessingException | RuntimeException e) {
+      log.warn("Não foi possível gravar a cópia local da NF-e {}: {}", ref, e.getMessage());
+      return false;
+    }
+  }
+
+  private LocalDateTime dateTime(String value) {
+    return value == null || value.isBlank() ? null : OffsetDateTime.parse(value).toLocalDateTime();
+  }
+
+  private BigDecimal decimal(String value) {
+    return value == null || value.isBlank() ? null : new BigDecimal(value);
+  }
+}
@@ -1,12 +1,14 @@
 package com.hortifruti.sl.hortifruti.service.invoice;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hortifruti.sl.hortifruti.config.FocusNfeApiClient;
+import com.hortifruti.sl.hortifruti.config.http.ProviderJsonCodec;
 import com.hortifruti.sl.hortifruti.dto.invoice.InvoiceResponse;
 import com.hortifruti.sl.hortifruti.dto.invoice.IssueInvoiceRequest;
 import com.hortifruti.sl.hortifruti.dto.invoice.ItemRequest;
 import com.hortifruti.sl.hortifruti.dto.invoice.RecipientRequest;
 import com.hortifruti.sl.hortifruti.exception.InvoiceException;
+import com.hortifruti.sl.hortifruti.exception.IssuanceInProgressException;
+import com.hortifruti.sl.hortifruti.model.enumeration.IssuanceOperation;
 import com.hortifruti.sl.hortifruti.model.purchase.Client;
 import com.hortifruti.sl.hortifruti.model.purchase.CombinedScore;
 import com.hortifruti.sl.hortifruti.repository.purchase.ClientRepository;
@@ -14,12 +16,13 @@ import com.hortifruti.sl.hortifruti.repository.purchase.CombinedScoreRepository;
 import com.hortifruti.sl.hortifruti.service.invoice.factory.InvoiceItem;
 import com.hortifruti.sl.hortifruti.service.invoice.factory.InvoicePayload;
 import com.hortifruti.sl.hortifruti.service.invoice.factory.Recipient;
+import com.hortifruti.sl.hortifruti.service.purchase.IssuanceIdempotency;
 import jakarta.transaction.Transactional;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
-import java.util.UUID;
+import java.util.Set;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -28,8 +31,6 @@ import org.springframework.stereotype.Service;
 @Service
 public class IssueInvoice {
 
-  private final ObjectMapper objectMapper = new ObjectMapper();
-
   @Value("${focus.nfe.token}")
   private String focusNfeToken;
 
@@ -51,30 +52,67 @@ public class IssueInvoice {
   private final InvoicePayload invoicePayloadService;
   private final String info = "Venda de produtos hortifrutigranjeiros frescos";
   private final FocusNfeApiClient focusNfeApiClient;
-
+  private final ProviderJsonCodec providerJsonCodec;
+  private final IssuanceIdempotency issuanceIdempotency;
+  private final InvoiceDocumentReadiness invoiceDocumentReadiness;
+  private final FiscalArtifactStore fiscalArtifactStore;
+
+  /**
+   * Situações da Focus NFe em que a nota foi aceita; as demais permitem reenviar a mesma ref. Uma
+   * nota aceita para processamento e rejeitada depois é liberada na consulta da sua situação
+   * ({@link InvoiceSnapshotStore}).
+   */
+  private static final Set<String> ACCEPTED_STATUSES =
+      Set.of("processando_autorizacao", "autorizado");
+
+  /**
+   * Emite a nota fiscal do agrupamento. A referência enviada à Focus NFe é a da chave de
+   * idempotência, então uma nova tentativa reaproveita a mesma ref e uma requisição repetida recebe
+   * a nota já emitida. Uma nota rejeitada ou denegada não conclui a chave, e a mesma ref pode ser
+   * reenviada depois da correção.
+   */
   @Transactional
   public InvoiceResponse issueInvoice(Long combinedScoreId) {
     try {
       CombinedScore combinedScore = fetchCombinedScore(combinedScoreId);
       Client client = fetchClient(combinedScore.getClientId());
 
-      RecipientRequest recipient = recipientService.createRecipientRequest(client.getId());
-      List<ItemRequest> items = invoiceItemService.createItems(combinedScore.getGroupedProducts());
-      IssueInvoiceRequest request = buildInvoiceRequest(combinedScoreId, recipient, items);
-
-      String ref = UUID.randomUUID().toString();
-      String payload = invoicePayloadService.buildFocusNfePayload(request, ref);
-      String response = focusNfeApiClient.sendRequest(ref, payload);
-
-      InvoiceResponse invoiceResponse = objectMapper.readValue(response, InvoiceResponse.class);
+      InvoiceResponse invoiceResponse =
+          issuanceIdempotency.issue(
+              combinedScoreId,
+              IssuanceOperation.NOTA_FISCAL,
+              InvoiceResponse.class,
+              ref -> sendInvoice(combinedScore, client, ref));
       updateCombinedScoreStatus(combinedScore, invoiceResponse);
+      invoiceDocumentReadiness.track(invoiceResponse.ref());
+      // Nota emitida de novo para um agrupamento de mês encerrado muda os arquivos daquele mês
+      fiscalArtifactStore.evictPeriodOf(combinedScore.getConfirmedAt());
 
       return invoiceResponse;
+    } catch (IssuanceInProgressException e) {
+      throw e;
     } catch (Exception e) {
       throw new InvoiceException("Erro ao emitir nota fiscal: " + e.getMessage(), e);
     }
   }
 
+  private InvoiceResponse sendInvoice(CombinedScore combinedScore, Client client, String ref)
+      throws Exception {
+    RecipientRequest recipient = recipientService.createRecipientRequest(client.getId());
+    List<ItemRequest> items = invoiceItemService.createItems(combinedScore.getGroupedProducts());
+    IssueInvoiceRequest request = buildInvoiceRequest(combinedScore.getId(), recipient, items);
+
+    String payload = invoicePayloadService.buildFocusNfePayload(request, ref);
+    String response = focusNfeApiClient.sendRequest(ref, payload);
+    InvoiceResponse invoiceResponse = providerJsonCodec.read(response, InvoiceResponse.class);
+    if (invoiceResponse.status() == null
+        || !ACCEPTED_STATUSES.contains(invoiceResponse.status().toLowerCase())) {
+      throw new InvoiceException(
+          "Nota fiscal não aceita pela Focus NFe (situação: " + invoiceResponse.status() + ").");
+    }
+    return invoiceResponse;
+  }
+
   private CombinedScore fetchCombinedScore(Long combinedScoreId) {
     return combinedScoreRepository
         .findById(combinedScoreId)
@@ -103,6 +141,7 @@ public class IssueInvoice {
       CombinedScore combinedScore, InvoiceResponse invoiceResponse) {
     combinedScore.setHasInvoice(true);
     combinedScore.setInvoiceRef(invoiceResponse.ref());
+    combinedScore.setInvoiceCheckedAt(null);
     combinedScoreRepository.save(combinedScore);
   }
 }
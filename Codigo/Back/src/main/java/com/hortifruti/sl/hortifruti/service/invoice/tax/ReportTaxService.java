@@ -1,162 +1,170 @@
 package com.hortifruti.sl.hortifruti.service.invoice.tax;
 
+import com.hortifruti.sl.hortifruti.service.invoice.FiscalArtifactStore;
 import com.hortifruti.sl.hortifruti.service.invoice.tax.icms.IcmsReport;
 import com.hortifruti.sl.hortifruti.service.invoice.tax.nfSales.NfSalesReport;
 import com.hortifruti.sl.hortifruti.service.invoice.tax.payment.PaymentReport;
 import com.hortifruti.sl.hortifruti.service.invoice.tax.registerReport.RegisterReport;
 import com.hortifruti.sl.hortifruti.service.invoice.tax.sales.SalesReport;
-import java.io.FileOutputStream;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+@Slf4j
 @Service
 @AllArgsConstructor
 public class ReportTaxService {
+  private static final int RENDER_THREADS = 4;
+
   private final PaymentReport paymentReport;
   private final RegisterReport registerReport;
   private final SalesReport salesReport;
   private final NfSalesReport nfSalesReport;
   private final IcmsReport icmsReport;
-
-  public byte[] generateMonthly(LocalDate startDate, LocalDate endDate) {
-    Path zipPath = null;
-    try {
-      String zipFilePath = generateMonthlyReports(startDate, endDate);
-      zipPath = Paths.get(zipFilePath);
-
-      byte[] zipBytes = Files.readAllBytes(zipPath);
-
-      return zipBytes;
-    } catch (Exception e) {
-      e.printStackTrace();
-      return null;
-    } finally {
-      // Remove o arquivo ZIP gerado
-      if (zipPath != null && Files.exists(zipPath)) {
-        try {
-          Files.delete(zipPath);
-        } catch (IOException e) {
-          System.err.println("Erro ao excluir o arquivo: " + zipPath);
-          e.printStackTrace();
+  private final TaxReportSnapshotLoader taxReportSnapshotLoader;
+  private final MeterRegistry meterRegistry;
+  private final FiscalArtifactStore fiscalArtifactStore;
+
+  /**
+   * Prepara o pacote mensal de relatórios. Para um mês já encerrado, o pacote guardado na primeira
+   * geração é servido direto do disco. Caso contrário, as notas do período são consultadas antes da
+   * resposta, e os PDFs e o ZIP de notas de saída são gerados enquanto o ZIP é escrito, sem pasta
+   * temporária e sem montar o arquivo inteiro em memória.
+   *
+   * @param startDate Data inicial do período
+   * @param endDate Data final do período
+   * @return Corpo da resposta que escreve o ZIP com os relatórios
+   */
+  public StreamingResponseBody generateMonthly(LocalDate startDate, LocalDate endDate) {
+    Optional<Path> cached =
+        fiscalArtifactStore.find(FiscalArtifactStore.Type.RELATORIOS_FISCAIS, startDate, endDate);
+    if (cached.isPresent()) {
+      return outputStream -> {
+        try (InputStream content = Files.newInputStream(cached.get())) {
+          content.transferTo(outputStream);
         }
-      }
+      };
     }
-  }
-
-  private byte[] generatePaymentReport(LocalDate startDate, LocalDate endDate) throws IOException {
-    return paymentReport.createPaymentReportPdf(startDate, endDate);
-  }
 
-  private byte[] generateRegisterReport(LocalDate startDate, LocalDate endDate) throws IOException {
-    return registerReport.createRegisterReportPdf(startDate, endDate);
+    long mark = fiscalArtifactStore.mark();
+    TaxReportSnapshot snapshot = taxReportSnapshotLoader.load(startDate, endDate);
+    return outputStream ->
+        fiscalArtifactStore.write(
+            FiscalArtifactStore.Type.RELATORIOS_FISCAIS,
+            startDate,
+            endDate,
+            mark,
+            outputStream,
+            out -> writeMonthlyReports(snapshot, out));
   }
 
-  private byte[] generateSalesReport(LocalDate startDate, LocalDate endDate) throws IOException {
-    return salesReport.createSalesReportPdf(startDate, endDate);
-  }
-
-  private String generateNfSalesZip(LocalDate startDate, LocalDate endDate) throws IOException {
-    return nfSalesReport.createNfSalesZip(startDate, endDate);
-  }
-
-  private byte[] generateIcmsReport(LocalDate startDate, LocalDate endDate) throws IOException {
-    return icmsReport.createIcmsReportPdf(null, startDate, endDate);
-  }
-
-  private String generateMonthlyReports(LocalDate startDate, LocalDate endDate) throws IOException {
-    String folderName = createMonthlyFolder(startDate);
-    Path folderPath = Path.of(folderName);
-
-    generateAndSaveReports(startDate, endDate, folderPath);
-    generateAndMoveNfSalesZip(startDate, endDate, folderPath);
-
-    Path zipFilePath = compressFolder(folderPath, folderName);
-
-    return zipFilePath.toString();
-  }
-
-  private String createMonthlyFolder(LocalDate startDate) throws IOException {
-    String tempDir = System.getProperty("java.io.tmpdir");
-    String folderName = tempDir + "/MES_" + startDate.format(DateTimeFormatter.ofPattern("MM"));
-    Path folderPath = Path.of(folderName);
-
-    if (!Files.exists(folderPath)) {
-      Files.createDirectories(folderPath);
+  /**
+   * Escreve todos os relatórios do período a partir de um único {@link TaxReportSnapshot}, de modo
+   * que cada nota fiscal é consultada na Focus NFe uma só vez por execução. Os quatro PDFs são
+   * independentes e são renderizados ao mesmo tempo, então o tempo total fica no do mais lento.
+   *
+   * @return {@code true} se nenhuma nota ou XML do período ficou de fora
+   */
+  private boolean writeMonthlyReports(TaxReportSnapshot snapshot, OutputStream outputStream)
+      throws IOException {
+    long start = System.nanoTime();
+    try (ExecutorService executor = Executors.newFixedThreadPool(RENDER_THREADS);
+        ZipOutputStream zip = new ZipOutputStream(outputStream)) {
+      Map<String, Future<byte[]>> pdfs = new LinkedHashMap<>();
+      pdfs.put(
+          "Resumo_de_Vendas_por_Forma_de_Pagamento.pdf",
+          executor.submit(
+              () -> render("pagamento", () -> paymentReport.createPaymentReportPdf(snapshot))));
+      pdfs.put(
+          "Registro_de_saida_nf.pdf",
+          executor.submit(
+              () -> render("registro", () -> registerReport.createRegisterReportPdf(snapshot))));
+      pdfs.put(
+          "Relacao_de_Vendas.pdf",
+          executor.submit(
+              () -> render("vendas", () -> salesReport.createSalesReportPdf(snapshot))));
+      pdfs.put(
+          "Registro_Apuracao_ICMS.pdf",
+          executor.submit(() -> render("icms", () -> icmsReport.createIcmsReportPdf(snapshot))));
+
+      try {
+        for (Map.Entry<String, Future<byte[]>> pdf : pdfs.entrySet()) {
+          writeEntry(zip, pdf.getKey(), await(pdf.getValue()));
+        }
+      } catch (IOException | RuntimeException e) {
+        executor.shutdownNow();
+        throw e;
+      }
+      log.info(
+          "Relatórios fiscais de {} renderizados em {} ms.",
+          snapshot.startDate(),
+          Duration.ofNanos(System.nanoTime() - start).toMillis());
+
+      zip.putNextEntry(new ZipEntry(nfSalesZipName(snapshot)));
+      boolean allXmls = nfSalesReport.writeNfSalesZip(snapshot, zip);
+      zip.closeEntry();
+      return snapshot.complete() && allXmls;
     }
-
-    return folderName;
   }
 
-  private void generateAndSaveReports(LocalDate startDate, LocalDate endDate, Path folderPath)
-      throws IOException {
-    saveFile(
-        folderPath.resolve("Resumo_de_Vendas_por_Forma_de_Pagamento.pdf"),
-        generatePaymentReport(startDate, endDate));
-    saveFile(
-        folderPath.resolve("Registro_de_saida_nf.pdf"), generateRegisterReport(startDate, endDate));
-    saveFile(folderPath.resolve("Relacao_de_Vendas.pdf"), generateSalesReport(startDate, endDate));
-    saveFile(
-        folderPath.resolve("Registro_Apuracao_ICMS.pdf"), generateIcmsReport(startDate, endDate));
+  /** Renderiza um relatório, registrando a duração em {@code tax.report.render}. */
+  private byte[] render(String report, PdfRender pdfRender) throws Exception {
+    return Timer.builder("tax.report.render")
+        .tag("report", report)
+        .register(meterRegistry)
+        .recordCallable(pdfRender::render);
   }
 
-  private void generateAndMoveNfSalesZip(LocalDate startDate, LocalDate endDate, Path folderPath)
-      throws IOException {
-    String monthName = startDate.format(DateTimeFormatter.ofPattern("MMMM", Locale.of("pt", "BR")));
-    String nfSalesZipName = capitalizeFirstLetter(monthName) + "_NFE_SAIDAS.zip";
-    String nfSalesZipPath = generateNfSalesZip(startDate, endDate);
-
-    Path targetPath = folderPath.resolve(nfSalesZipName);
-
-    // Verifica se o arquivo já existe e exclui, se necessário
-    if (Files.exists(targetPath)) {
-      Files.delete(targetPath); // Remove o arquivo existente
+  private byte[] await(Future<byte[]> pdf) throws IOException {
+    try {
+      return pdf.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Geração dos relatórios fiscais interrompida.", e);
+    } catch (ExecutionException e) {
+      throw new IOException("Erro ao gerar relatório fiscal: " + e.getCause().getMessage(), e);
     }
+  }
 
-    // Move o arquivo para o destino
-    Files.move(Path.of(nfSalesZipPath), targetPath);
+  @FunctionalInterface
+  private interface PdfRender {
+    byte[] render() throws IOException;
   }
 
-  private Path compressFolder(Path folderPath, String folderName) throws IOException {
-    String zipFileName = folderName + ".zip";
-    Path zipFilePath = Path.of(zipFileName);
-    zipFolder(folderPath, zipFilePath);
-    return zipFilePath;
+  private String nfSalesZipName(TaxReportSnapshot snapshot) {
+    String monthName =
+        snapshot.startDate().format(DateTimeFormatter.ofPattern("MMMM", Locale.of("pt", "BR")));
+    return capitalizeFirstLetter(monthName) + "_NFE_SAIDAS.zip";
   }
 
   private String capitalizeFirstLetter(String text) {
     return text.substring(0, 1).toUpperCase() + text.substring(1);
   }
 
-  private void saveFile(Path filePath, byte[] content) throws IOException {
-    try (FileOutputStream fos = new FileOutputStream(filePath.toFile())) {
-      fos.write(content);
-    }
-  }
-
-  private void zipFolder(Path sourceFolderPath, Path zipPath) throws IOException {
-    try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(zipPath.toFile()))) {
-      Files.walk(sourceFolderPath)
-          .filter(path -> !Files.isDirectory(path))
-          .forEach(
-              path -> {
-                ZipEntry zipEntry = new ZipEntry(sourceFolderPath.relativize(path).toString());
-                try {
-                  zos.putNextEntry(zipEntry);
-                  Files.copy(path, zos);
-                  zos.closeEntry();
-                } catch (IOException e) {
-                  throw new RuntimeException("Erro ao compactar arquivo: " + path, e);
-                }
-              });
-    }
+  private void writeEntry(ZipOutputStream zip, String name, byte[] content) throws IOException {
+    zip.putNextEntry(new ZipEntry(name));
+    zip.write(content);
+    zip.closeEntry();
   }
 }
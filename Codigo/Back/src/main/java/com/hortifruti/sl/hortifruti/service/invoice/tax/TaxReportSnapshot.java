@@ -0,0 +1,30 @@
+package com.hortifruti.sl.hortifruti.service.invoice.tax;
+
+import com.hortifruti.sl.hortifruti.dto.invoice.InvoiceTaxDetails;
+import com.hortifruti.sl.hortifruti.model.purchase.CombinedScore;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Notas fiscais de um período, consultadas uma única vez e compartilhadas por todos os relatórios
+ * fiscais da mesma execução.
+ *
+ * @param combinedScores Agrupamentos com nota fiscal no período
+ * @param taxDetails Dados tributários por referência, só das notas consultadas com sucesso
+ * @param xmlPaths Caminho do XML na Focus NFe por referência
+ * @param complete Se todas as notas do período foram consultadas, com dados tributários e XML
+ */
+public record TaxReportSnapshot(
+    LocalDate startDate,
+    LocalDate endDate,
+    List<CombinedScore> combinedScores,
+    Map<String, InvoiceTaxDetails> taxDetails,
+    Map<String, String> xmlPaths,
+    boolean complete) {
+
+  /** Dados tributários das notas, na ordem dos agrupamentos. */
+  public List<InvoiceTaxDetails> invoices() {
+    return List.copyOf(taxDetails.values());
+  }
+}
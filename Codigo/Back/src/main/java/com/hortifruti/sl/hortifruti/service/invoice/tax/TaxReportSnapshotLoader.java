@@ -0,0 +1,89 @@
+package com.hortifruti.sl.hortifruti.service.invoice.tax;
+
+import com.hortifruti.sl.hortifruti.dto.invoice.FocusNfeInvoice;
+import com.hortifruti.sl.hortifruti.dto.invoice.InvoiceTaxDetails;
+import com.hortifruti.sl.hortifruti.model.purchase.CombinedScore;
+import com.hortifruti.sl.hortifruti.service.invoice.InvoiceFetchEngine;
+import com.hortifruti.sl.hortifruti.service.invoice.InvoiceQuery;
+import com.hortifruti.sl.hortifruti.service.invoice.InvoiceSnapshotStore;
+import com.hortifruti.sl.hortifruti.service.purchase.CombinedScoreService;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Monta o {@link TaxReportSnapshot} de um período: lista os agrupamentos com nota uma vez e
+ * consulta cada nota na Focus NFe uma vez, extraindo da mesma resposta os dados tributários e o
+ * caminho do XML.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TaxReportSnapshotLoader {
+  private final CombinedScoreService combinedScoreService;
+  private final InvoiceQuery invoiceQuery;
+  private final InvoiceSnapshotStore invoiceSnapshotStore;
+  private final InvoiceFetchEngine invoiceFetchEngine;
+
+  public TaxReportSnapshot load(LocalDate startDate, LocalDate endDate) {
+    List<CombinedScore> combinedScores =
+        combinedScoreService.getCombinedScoresWithInvoice(startDate, endDate);
+
+    List<String> refs =
+        combinedScores.stream()
+            .map(CombinedScore::getInvoiceRef)
+            .filter(Objects::nonNull)
+            .distinct()
+            .toList();
+
+    // Notas com cópia local não passam pela fila de consultas à Focus NFe
+    Map<String, FocusNfeInvoice> invoices = new HashMap<>();
+    List<String> remoteRefs = new ArrayList<>();
+    for (String ref : refs) {
+      invoiceSnapshotStore
+          .findLocal(ref)
+          .ifPresentOrElse(invoice -> invoices.put(ref, invoice), () -> remoteRefs.add(ref));
+    }
+    invoices.putAll(invoiceFetchEngine.fetchAll("notas", remoteRefs, invoiceQuery::fetchInvoice));
+
+    Map<String, InvoiceTaxDetails> taxDetails = new LinkedHashMap<>();
+    Map<String, String> xmlPaths = new LinkedHashMap<>();
+    for (String ref : refs) {
+      FocusNfeInvoice invoice = invoices.get(ref);
+      if (invoice == null) {
+        continue;
+      }
+      String xmlPath = invoice.caminhoXmlNotaFiscal();
+      if (xmlPath != null && !xmlPath.isBlank()) {
+        xmlPaths.put(ref, xmlPath);
+      }
+      try {
+        taxDetails.put(ref, invoiceQuery.extractInvoiceTaxDetails(invoice, ref));
+      } catch (RuntimeException e) {
+        log.warn("Erro ao processar a NF-e {}: {}", ref, e.getMessage());
+      }
+    }
+
+    log.info(
+        "Relatórios fiscais de {} a {}: {} notas consultadas, {} com dados tributários.",
+        startDate,
+        endDate,
+        combinedScores.size(),
+        taxDetails.size());
+    return new TaxReportSnapshot(
+        startDate,
+        endDate,
+        List.copyOf(combinedScores),
+        Collections.unmodifiableMap(taxDetails),
+        Collections.unmodifiableMap(xmlPaths),
+        taxDetails.size() == refs.size() && xmlPaths.size() == refs.size());
+  }
+}
@@ -1,6 +1,8 @@
 package com.hortifruti.sl.hortifruti.service.invoice.tax.icms;
 
 import com.hortifruti.sl.hortifruti.dto.invoice.IcmsSalesReport;
+import com.hortifruti.sl.hortifruti.service.invoice.tax.TaxReportSnapshot;
+import java.io.IOException;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Component;
 
@@ -10,10 +12,8 @@ public class IcmsReport {
   private final ImcsReportCalculator icmsReportCalculator;
   private final IcmsPdfGenerator icmsPdfGenerator;
 
-  public byte[] createIcmsReportPdf(
-      String filePath, java.time.LocalDate startDate, java.time.LocalDate endDate)
-      throws java.io.IOException {
-    IcmsSalesReport report = icmsReportCalculator.generateIcmsSalesReport(startDate, endDate);
-    return icmsPdfGenerator.generateIcmsReportPdf(report, startDate, endDate);
+  public byte[] createIcmsReportPdf(TaxReportSnapshot snapshot) throws IOException {
+    IcmsSalesReport report = icmsReportCalculator.generateIcmsSalesReport(snapshot);
+    return icmsPdfGenerator.generateIcmsReportPdf(report, snapshot.startDate(), snapshot.endDate());
   }
 }
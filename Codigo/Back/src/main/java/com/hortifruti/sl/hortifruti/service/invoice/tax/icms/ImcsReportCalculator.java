@@ -3,26 +3,16 @@ package com.hortifruti.sl.hortifruti.service.invoice.tax.icms;
 import com.hortifruti.sl.hortifruti.dto.invoice.IcmsSalesReport;
 import com.hortifruti.sl.hortifruti.dto.invoice.InvoiceTaxDetails;
 import com.hortifruti.sl.hortifruti.dto.invoice.ItemTaxDetails;
-import com.hortifruti.sl.hortifruti.model.purchase.CombinedScore;
-import com.hortifruti.sl.hortifruti.service.invoice.InvoiceQuery;
-import com.hortifruti.sl.hortifruti.service.purchase.CombinedScoreService;
+import com.hortifruti.sl.hortifruti.service.invoice.tax.TaxReportSnapshot;
 import java.math.BigDecimal;
-import java.time.LocalDate;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Component;
 
 @Component
-@AllArgsConstructor
 public class ImcsReportCalculator {
-  private final InvoiceQuery invoiceQuery;
-  private final CombinedScoreService combinedScoreService;
-
-  public IcmsSalesReport generateIcmsSalesReport(LocalDate startDate, LocalDate endDate) {
-    List<CombinedScore> combinedScores = fetchCombinedScores(startDate, endDate);
 
+  public IcmsSalesReport generateIcmsSalesReport(TaxReportSnapshot snapshot) {
     BigDecimal totalContabil = BigDecimal.ZERO;
     BigDecimal totalBaseCalculo = BigDecimal.ZERO;
     BigDecimal totalImpostoDebitado = BigDecimal.ZERO;
@@ -31,9 +21,9 @@ public class ImcsReportCalculator {
 
     Map<String, BigDecimal> valoresPorCfop = new HashMap<>();
 
-    for (CombinedScore combinedScore : combinedScores) {
-      processCombinedScore(
-          combinedScore,
+    for (InvoiceTaxDetails taxDetails : snapshot.invoices()) {
+      processInvoice(
+          taxDetails,
           valoresPorCfop,
           totalContabil,
           totalBaseCalculo,
@@ -51,8 +41,8 @@ public class ImcsReportCalculator {
         valoresPorCfop);
   }
 
-  private void processCombinedScore(
-      CombinedScore combinedScore,
+  private void processInvoice(
+      InvoiceTaxDetails taxDetails,
       Map<String, BigDecimal> valoresPorCfop,
       BigDecimal totalContabil,
       BigDecimal totalBaseCalculo,
@@ -60,9 +50,6 @@ public class ImcsReportCalculator {
       BigDecimal totalIsentasOuNaoTributadas,
       BigDecimal totalOutras) {
     try {
-      InvoiceTaxDetails taxDetails =
-          invoiceQuery.extractInvoiceTaxDetails(combinedScore.getInvoiceRef());
-
       updateTotals(
           taxDetails,
           totalContabil,
@@ -73,7 +60,7 @@ public class ImcsReportCalculator {
 
       groupValuesByCfop(taxDetails, valoresPorCfop);
     } catch (Exception e) {
-      handleProcessingError(combinedScore, e);
+      handleProcessingError(taxDetails, e);
     }
   }
 
@@ -99,7 +86,7 @@ public class ImcsReportCalculator {
     }
   }
 
-  private void handleProcessingError(CombinedScore combinedScore, Exception e) {
+  private void handleProcessingError(InvoiceTaxDetails taxDetails, Exception e) {
     e.printStackTrace();
   }
 
@@ -118,8 +105,4 @@ public class ImcsReportCalculator {
         totalOutras,
         valoresPorCfop);
   }
-
-  private List<CombinedScore> fetchCombinedScores(LocalDate startDate, LocalDate endDate) {
-    return combinedScoreService.getCombinedScoresWithInvoice(startDate, endDate);
-  }
 }
@@ -1,21 +1,18 @@
 package com.hortifruti.sl.hortifruti.service.invoice.tax.nfSales;
 
-import java.io.File;
+import com.hortifruti.sl.hortifruti.service.invoice.tax.TaxReportSnapshot;
 import java.io.IOException;
-import java.time.LocalDate;
-import java.util.List;
+import java.io.OutputStream;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
 
 @Service
 @AllArgsConstructor
 public class NfSalesReport {
-  private final NfSalesCalculator nfSalesCalculator;
   private final NfSalesZipGenerator nfSalesZipGenerator;
 
-  public String createNfSalesZip(LocalDate startDate, LocalDate endDate) throws IOException {
-    List<File> xmlFiles = nfSalesCalculator.generateXmlFileList(startDate, endDate);
-
-    return nfSalesZipGenerator.generateZipFromXmlFiles(xmlFiles, startDate, endDate);
+  /** Escreve o ZIP de notas de saída; retorna {@code true} se todos os XMLs foram incluídos. */
+  public boolean writeNfSalesZip(TaxReportSnapshot snapshot, OutputStream out) throws IOException {
+    return nfSalesZipGenerator.writeZip(snapshot.xmlPaths(), out);
   }
 }
@@ -1,101 +1,105 @@
 package com.hortifruti.sl.hortifruti.service.invoice.tax.nfSales;
 
-import java.io.File;
-import java.io.FileOutputStream;
+import com.hortifruti.sl.hortifruti.dto.invoice.XmlPart;
+import com.hortifruti.sl.hortifruti.service.invoice.DanfeXmlService;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.util.List;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
 
+@Slf4j
 @Service
+@AllArgsConstructor
 public class NfSalesZipGenerator {
+  /** Trechos aguardando escrita; limita a memória usada pelos downloads adiantados. */
+  private static final int PREFETCH = 32;
 
-  public String generateZipFromXmlFiles(List<File> xmlFiles, LocalDate startDate, LocalDate endDate)
-      throws IOException {
-    String folderName = formatFolderName(startDate, endDate);
+  private static final String FAILURES_ENTRY = "xmls_nao_incluidos.csv";
 
-    // ✅ USAR DIRETÓRIO TEMPORÁRIO em vez de /app/
-    Path tempDir = Paths.get(System.getProperty("java.io.tmpdir"));
-    Path folderPath = tempDir.resolve(folderName);
+  private final DanfeXmlService danfeXmlService;
 
-    Files.createDirectories(folderPath);
+  /**
+   * Escreve o ZIP com os XMLs das notas no destino, sem pasta ou arquivo temporário. Os XMLs são
+   * baixados em paralelo e copiados da Focus NFe direto para a sua entrada; as notas que falharem
+   * são listadas em {@value #FAILURES_ENTRY} ao final.
+   *
+   * @param xmlPathsByRef Caminho do XML de cada nota fiscal, por referência.
+   * @param out Destino do ZIP; não é fechado, para que possa ser uma entrada de outro ZIP.
+   * @return {@code true} se todos os XMLs foram incluídos.
+   */
+  public boolean writeZip(Map<String, String> xmlPathsByRef, OutputStream out) throws IOException {
+    ZipOutputStream zos = new ZipOutputStream(StreamUtils.nonClosing(out));
+    Map<String, String> failures = new LinkedHashMap<>();
+    String openRef = null;
+    int written = 0;
 
-    for (File xmlFile : xmlFiles) {
-      try {
-        if (!xmlFile.exists() || xmlFile.length() == 0) {
-          System.err.println("Arquivo XML inválido ou vazio: " + xmlFile.getName());
-          continue;
+    // Fechar o stream cancela os downloads pendentes se a escrita falhar
+    try (Stream<XmlPart> parts = danfeXmlService.streamXmls(xmlPathsByRef).toStream(PREFETCH)) {
+      Iterator<XmlPart> iterator = parts.iterator();
+      while (iterator.hasNext()) {
+        XmlPart part = iterator.next();
+        switch (part.kind()) {
+          case DADOS -> {
+            if (!part.ref().equals(openRef)) {
+              zos.putNextEntry(new ZipEntry(part.ref() + ".xml"));
+              openRef = part.ref();
+            }
+            try (InputStream data = part.data().asInputStream(true)) {
+              data.transferTo(zos);
+            }
+          }
+          case FIM -> {
+            if (part.ref().equals(openRef)) {
+              zos.closeEntry();
+              openRef = null;
+              written++;
+            } else {
+              failures.put(part.ref(), "XML vazio");
+            }
+          }
+          case FALHA -> {
+            if (part.ref().equals(openRef)) {
+              zos.closeEntry();
+              openRef = null;
+              failures.put(part.ref(), "XML incompleto: " + part.error());
+            } else {
+              failures.put(part.ref(), part.error());
+            }
+          }
         }
-        Path sourcePath = xmlFile.toPath();
-        Path destinationPath = folderPath.resolve(sourcePath.getFileName());
-        System.out.println("Copiando arquivo de: " + sourcePath + " para: " + destinationPath);
-
-        Files.copy(sourcePath, destinationPath, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
-      } catch (IOException e) {
-        System.err.println("Erro ao copiar arquivo XML: " + xmlFile.getName());
-        e.printStackTrace();
-        throw new IOException("Erro ao copiar arquivo XML: " + xmlFile.getName(), e);
       }
     }
 
-    String zipFileName = folderName + ".zip";
-    Path zipFilePath = tempDir.resolve(zipFileName); // ✅ ZIP também no temp dir
-
-    try (FileOutputStream fos = new FileOutputStream(zipFilePath.toFile());
-        ZipOutputStream zos = new ZipOutputStream(fos)) {
-
-      Files.walk(folderPath)
-          .filter(Files::isRegularFile)
-          .forEach(
-              file -> {
-                try {
-                  ZipEntry zipEntry = new ZipEntry(folderPath.relativize(file).toString());
-                  zos.putNextEntry(zipEntry);
-                  Files.copy(file, zos);
-                  zos.closeEntry();
-                } catch (IOException e) {
-                  System.err.println("Erro ao adicionar arquivo ao ZIP: " + file);
-                  e.printStackTrace();
-                  throw new RuntimeException("Erro ao adicionar arquivo ao ZIP: " + file, e);
-                }
-              });
-    } catch (IOException e) {
-      System.err.println("Erro ao criar o arquivo ZIP: " + zipFileName);
-      e.printStackTrace();
-      throw new IOException("Erro ao criar o arquivo ZIP: " + zipFileName, e);
-    }
-
-    // Limpeza dos arquivos temporários
-    try {
-      Files.walk(folderPath)
-          .sorted((path1, path2) -> path2.compareTo(path1))
-          .forEach(
-              path -> {
-                try {
-                  Files.delete(path);
-                } catch (IOException e) {
-                  System.err.println("Erro ao excluir: " + path);
-                  e.printStackTrace();
-                }
-              });
-    } catch (IOException e) {
-      System.err.println("Erro ao excluir a pasta: " + folderPath);
-      e.printStackTrace();
+    if (!failures.isEmpty()) {
+      zos.putNextEntry(new ZipEntry(FAILURES_ENTRY));
+      zos.write(toCsv(failures).getBytes(StandardCharsets.UTF_8));
+      zos.closeEntry();
+      log.warn("XMLs não incluídos no ZIP de notas de saída: {}", failures.keySet());
     }
 
-    return zipFilePath.toString(); // ✅ Retorna o caminho completo do ZIP
+    zos.finish();
+    log.info("ZIP de notas de saída: {} de {} XMLs incluídos.", written, xmlPathsByRef.size());
+    return failures.isEmpty();
   }
 
-  private String formatFolderName(LocalDate startDate, LocalDate endDate) {
-    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM-yyyy");
-    String startMonthYear = startDate.format(formatter);
-    String endMonthYear = endDate.format(formatter);
-    return "NF_Sales_" + startMonthYear + "_to_" + endMonthYear;
+  private String toCsv(Map<String, String> failures) {
+    StringBuilder csv = new StringBuilder("referencia;erro\n");
+    failures.forEach(
+        (ref, error) ->
+            csv.append(ref)
+                .append(';')
+                .append(error == null ? "" : error.replace(';', ',').replace('\n', ' '))
+                .append('\n'));
+    return csv.toString();
   }
 }
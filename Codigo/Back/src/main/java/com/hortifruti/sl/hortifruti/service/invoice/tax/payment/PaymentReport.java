@@ -1,8 +1,8 @@
 package com.hortifruti.sl.hortifruti.service.invoice.tax.payment;
 
+import com.hortifruti.sl.hortifruti.service.invoice.tax.TaxReportSnapshot;
 import java.io.IOException;
 import java.math.BigDecimal;
-import java.time.LocalDate;
 import java.util.Map;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Component;
@@ -13,9 +13,10 @@ public class PaymentReport {
   private final PaymentCalculator paymentCalculator;
   private final PaymentPdfGenerator paymentPdfGenerator;
 
-  public byte[] createPaymentReportPdf(LocalDate startDate, LocalDate endDate) throws IOException {
+  public byte[] createPaymentReportPdf(TaxReportSnapshot snapshot) throws IOException {
     Map<String, BigDecimal> paymentSummary =
-        paymentCalculator.generateBankSettlementTotals(startDate, endDate);
-    return paymentPdfGenerator.generateSummaryByPaymentPdf(paymentSummary, startDate, endDate);
+        paymentCalculator.generateBankSettlementTotals(snapshot);
+    return paymentPdfGenerator.generateSummaryByPaymentPdf(
+        paymentSummary, snapshot.startDate(), snapshot.endDate());
   }
 }
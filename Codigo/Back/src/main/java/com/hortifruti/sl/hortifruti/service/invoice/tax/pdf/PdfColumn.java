@@ -0,0 +1,26 @@
+package com.hortifruti.sl.hortifruti.service.invoice.tax.pdf;
+
+/**
+ * Coluna de uma tabela de relatório.
+ *
+ * @param header Título da coluna
+ * @param width Largura fixa em pontos; 0 para dividir o espaço que sobra entre as colunas
+ * @param clip Se textos maiores que a célula são cortados com reticências; nas demais colunas o
+ *     texto sai sempre completo, como os valores
+ */
+public record PdfColumn(String header, float width, boolean clip) {
+
+  /** Coluna com largura dividida igualmente no espaço que sobra. */
+  public static PdfColumn of(String header) {
+    return new PdfColumn(header, 0, false);
+  }
+
+  public static PdfColumn of(String header, float width) {
+    return new PdfColumn(header, width, false);
+  }
+
+  /** Coluna de texto livre (ex.: nome do cliente), cortada na largura da célula. */
+  public static PdfColumn clipped(String header, float width) {
+    return new PdfColumn(header, width, true);
+  }
+}
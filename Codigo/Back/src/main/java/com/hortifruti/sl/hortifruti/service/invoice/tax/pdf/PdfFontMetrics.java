@@ -0,0 +1,111 @@
+package com.hortifruti.sl.hortifruti.service.invoice.tax.pdf;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.encoding.GlyphList;
+import org.apache.pdfbox.pdmodel.font.encoding.WinAnsiEncoding;
+
+/**
+ * Larguras dos caracteres das fontes dos relatórios, calculadas uma vez na carga da classe.
+ *
+ * <p>A tabela evita consultar a fonte a cada medida de texto, e o texto desenhado passa antes por
+ * {@link #printable}, então um caractere fora do WinAnsi sai como {@code ?} em vez de fazer o
+ * {@code showText} falhar no meio do relatório. Os caches internos das fontes padrão do PDFBox já
+ * são {@code ConcurrentHashMap}, então a renderização em paralelo não depende desta classe para ser
+ * segura.
+ */
+final class PdfFontMetrics {
+  static final PDFont REGULAR = PDType1Font.HELVETICA;
+  static final PDFont BOLD = PDType1Font.HELVETICA_BOLD;
+
+  private static final char REPLACEMENT = '?';
+  private static final String ELLIPSIS = "...";
+
+  private static final Map<PDFont, Map<Character, Float>> WIDTHS =
+      Map.of(REGULAR, load(REGULAR), BOLD, load(BOLD));
+
+  private PdfFontMetrics() {}
+
+  /** Troca por {@code ?} os caracteres que a fonte não codifica e quebras de linha por espaço. */
+  static String printable(PDFont font, String text) {
+    if (text == null) {
+      return "";
+    }
+    Map<Character, Float> widths = WIDTHS.get(font);
+    StringBuilder result = new StringBuilder(text.length());
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c == '\n' || c == '\r' || c == '\t') {
+        result.append(' ');
+      } else {
+        result.append(widths.containsKey(c) ? c : REPLACEMENT);
+      }
+    }
+    return result.toString();
+  }
+
+  /** Largura do texto já passado por {@link #printable}, em pontos. */
+  static float width(PDFont font, float fontSize, String text) {
+    Map<Character, Float> widths = WIDTHS.get(font);
+    float total = 0;
+    for (int i = 0; i < text.length(); i++) {
+      total += widths.getOrDefault(text.charAt(i), 0f);
+    }
+    return total / 1000 * fontSize;
+  }
+
+  /** Corta o texto com reticências para caber na largura. */
+  static String fit(PDFont font, float fontSize, String text, float maxWidth) {
+    if (width(font, fontSize, text) <= maxWidth) {
+      return text;
+    }
+    float available = maxWidth - width(font, fontSize, ELLIPSIS);
+    int end = text.length();
+    while (end > 0 && width(font, fontSize, text.substring(0, end)) > available) {
+      end--;
+    }
+    return text.substring(0, end).stripTrailing() + ELLIPSIS;
+  }
+
+  /** Quebra o texto em linhas que cabem na largura, entre palavras sempre que possível. */
+  static List<String> wrap(PDFont font, float fontSize, String text, float maxWidth) {
+    List<String> lines = new ArrayList<>();
+    StringBuilder line = new StringBuilder();
+    for (String word : text.split(" ")) {
+      String candidate = line.isEmpty() ? word : line + " " + word;
+      if (line.isEmpty() || width(font, fontSize, candidate) <= maxWidth) {
+        line.setLength(0);
+        line.append(candidate);
+      } else {
+        lines.add(line.toString());
+        line.setLength(0);
+        line.append(word);
+      }
+    }
+    lines.add(line.toString());
+    return lines;
+  }
+
+  private static Map<Character, Float> load(PDFont font) {
+    Map<Character, Float> widths = new HashMap<>();
+    GlyphList glyphs = GlyphList.getAdobeGlyphList();
+    for (String name : WinAnsiEncoding.INSTANCE.getCodeToNameMap().values()) {
+      String unicode = glyphs.toUnicode(name);
+      if (unicode == null || unicode.length() != 1) {
+        continue;
+      }
+      try {
+        font.encode(unicode);
+        widths.put(unicode.charAt(0), font.getStringWidth(unicode));
+      } catch (IOException | IllegalArgumentException e) {
+        // Caractere sem glifo na fonte: sai como '?'
+      }
+    }
+    return Map.copyOf(widths);
+  }
+}
@@ -0,0 +1,243 @@
+package com.hortifruti.sl.hortifruti.service.invoice.tax.pdf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+
+/**
+ * Documento PDF dos relatórios fiscais, montado de cima para baixo. Textos e linhas de tabela
+ * quebram para uma nova página quando o espaço acaba, e o cabeçalho da tabela em andamento é
+ * repetido no topo da página seguinte.
+ *
+ * <p>Cada página é encerrada assim que fica cheia; acima de {@link #MAX_MAIN_MEMORY_BYTES} o
+ * conteúdo já gerado vai para arquivo temporário do PDFBox, então meses com muitas notas não
+ * acumulam o relatório inteiro em memória.
+ */
+public class PdfReportDocument implements Closeable {
+  private static final float TOP = 750;
+  private static final float BOTTOM = 50;
+  private static final float LINE_HEIGHT = 20;
+  private static final float CELL_HEIGHT = 25;
+  private static final float CELL_FONT_SIZE = 10;
+  private static final float CELL_TEXT_OFFSET = 10;
+  private static final float DEFAULT_CELL_PADDING = 15;
+  private static final long MAX_MAIN_MEMORY_BYTES = 4L * 1024 * 1024;
+
+  private final PDDocument document;
+  private final float leftMargin;
+  private final float contentWidth;
+  private PDPageContentStream content;
+  private PDFont currentFont;
+  private float currentFontSize;
+  private float y;
+  private int pages;
+
+  /** Tabela em andamento, para repetir o cabeçalho após a quebra de página. */
+  private List<PdfColumn> tableColumns;
+
+  private float[] tableWidths;
+  private float tablePadding;
+
+  /**
+   * @param leftMargin Margem esquerda, em pontos
+   * @param contentWidth Largura útil de textos e tabelas, em pontos
+   */
+  public PdfReportDocument(float leftMargin, float contentWidth) throws IOException {
+    this.document = new PDDocument(MemoryUsageSetting.setupMixed(MAX_MAIN_MEMORY_BYTES));
+    this.leftMargin = leftMargin;
+    this.contentWidth = contentWidth;
+    newPage();
+  }
+
+  /** Título do relatório, seguido de uma linha em branco. */
+  public void title(String text) throws IOException {
+    writeLine(PdfFontMetrics.BOLD, 16, text);
+    space();
+  }
+
+  /** Texto comum; textos longos quebram em várias linhas. */
+  public void text(String text, float fontSize) throws IOException {
+    writeWrapped(PdfFontMetrics.REGULAR, fontSize, text);
+  }
+
+  /** Texto em negrito; textos longos quebram em várias linhas. */
+  public void boldText(String text, float fontSize) throws IOException {
+    writeWrapped(PdfFontMetrics.BOLD, fontSize, text);
+  }
+
+  /** Linha em branco. */
+  public void space() {
+    y -= LINE_HEIGHT;
+  }
+
+  /** Linha horizontal na largura útil. */
+  public void rule() throws IOException {
+    ensureSpace(LINE_HEIGHT);
+    content.setLineWidth(1);
+    content.moveTo(leftMargin, y);
+    content.lineTo(leftMargin + contentWidth, y);
+    content.stroke();
+    y -= LINE_HEIGHT;
+  }
+
+  /** Inicia uma tabela com o recuo padrão do texto nas células. */
+  public void startTable(PdfColumn... columns) throws IOException {
+    startTable(DEFAULT_CELL_PADDING, columns);
+  }
+
+  /**
+   * Inicia uma tabela e desenha o cabeçalho. As linhas seguem com {@link #row} até {@link
+   * #endTable}.
+   *
+   * @param padding Recuo do texto dentro da célula, em pontos
+   * @param columns Colunas da tabela
+   */
+  public void startTable(float padding, PdfColumn... columns) throws IOException {
+    this.tableColumns = List.of(columns);
+    this.tablePadding = padding;
+    this.tableWidths = columnWidths(columns);
+    // O cabeçalho não fica sozinho no fim da página
+    ensureSpace(CELL_HEIGHT * 2);
+    drawHeader();
+  }
+
+  /**
+   * Linha da tabela em andamento. Só as colunas {@link PdfColumn#clipped} cortam o texto; nas
+   * demais, valores nunca são abreviados.
+   */
+  public void row(String... values) throws IOException {
+    if (y - CELL_HEIGHT < BOTTOM) {
+      newPage();
+      drawHeader();
+    }
+    drawCells(PdfFontMetrics.REGULAR, values);
+  }
+
+  /** Encerra a tabela em andamento. */
+  public void endTable() {
+    this.tableColumns = null;
+    this.tableWidths = null;
+  }
+
+  public int getPageCount() {
+    return pages;
+  }
+
+  /** Encerra a página atual e devolve o PDF completo. */
+  public byte[] toByteArray() throws IOException {
+    content.close();
+    try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+      document.save(outputStream);
+      return outputStream.toByteArray();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    document.close();
+  }
+
+  private void writeWrapped(PDFont font, float fontSize, String text) throws IOException {
+    String printable = PdfFontMetrics.printable(font, text);
+    for (String line : PdfFontMetrics.wrap(font, fontSize, printable, contentWidth)) {
+      writeLine(font, fontSize, line);
+    }
+  }
+
+  private void writeLine(PDFont font, float fontSize, String text) throws IOException {
+    ensureSpace(0);
+    setFont(font, fontSize);
+    content.beginText();
+    content.newLineAtOffset(leftMargin, y);
+    content.showText(PdfFontMetrics.printable(font, text));
+    content.endText();
+    y -= LINE_HEIGHT;
+  }
+
+  private void drawHeader() throws IOException {
+    drawCells(
+        PdfFontMetrics.BOLD, tableColumns.stream().map(PdfColumn::header).toArray(String[]::new));
+  }
+
+  private void drawCells(PDFont font, String[] values) throws IOException {
+    // Bordas de todas as células em um único traço
+    float x = leftMargin;
+    for (float width : tableWidths) {
+      content.addRect(x, y, width, -CELL_HEIGHT);
+      x += width;
+    }
+    content.stroke();
+
+    setFont(font, CELL_FONT_SIZE);
+    x = leftMargin;
+    for (int i = 0; i < tableWidths.length; i++) {
+      String value = i < values.length ? PdfFontMetrics.printable(font, values[i]) : "";
+      String fitted =
+          tableColumns.get(i).clip()
+              ? PdfFontMetrics.fit(
+                  font, CELL_FONT_SIZE, value, tableWidths[i] - tablePadding * 1.5f)
+              : value;
+      if (!fitted.isEmpty()) {
+        content.beginText();
+        content.newLineAtOffset(x + tablePadding, y - CELL_HEIGHT + CELL_TEXT_OFFSET);
+        content.showText(fitted);
+        content.endText();
+      }
+      x += tableWidths[i];
+    }
+    y -= CELL_HEIGHT;
+  }
+
+  /**
+   * Larguras das colunas: as fixas são mantidas e as demais dividem o restante em partes iguais. A
+   * divisão não depende dos títulos, para que colunas de valores com títulos curtos não fiquem
+   * estreitas demais para os números.
+   */
+  private float[] columnWidths(PdfColumn[] columns) {
+    float fixed = 0;
+    for (PdfColumn column : columns) {
+      fixed += column.width();
+    }
+    long autoColumns = Arrays.stream(columns).filter(c -> c.width() <= 0).count();
+    float share = autoColumns == 0 ? 0 : Math.max(0, contentWidth - fixed) / autoColumns;
+
+    float[] widths = new float[columns.length];
+    for (int i = 0; i < columns.length; i++) {
+      widths[i] = columns[i].width() > 0 ? columns[i].width() : share;
+    }
+    return widths;
+  }
+
+  private void ensureSpace(float height) throws IOException {
+    if (y - height < BOTTOM) {
+      newPage();
+    }
+  }
+
+  private void newPage() throws IOException {
+    if (content != null) {
+      content.close();
+    }
+    PDPage page = new PDPage();
+    document.addPage(page);
+    content = new PDPageContentStream(document, page);
+    currentFont = null;
+    y = TOP;
+    pages++;
+  }
+
+  private void setFont(PDFont font, float fontSize) throws IOException {
+    if (font != currentFont || fontSize != currentFontSize) {
+      content.setFont(font, fontSize);
+      currentFont = font;
+      currentFontSize = fontSize;
+    }
+  }
+}
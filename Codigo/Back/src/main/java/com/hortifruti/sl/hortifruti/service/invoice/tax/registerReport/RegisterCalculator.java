@@ -3,44 +3,22 @@ package com.hortifruti.sl.hortifruti.service.invoice.tax.registerReport;
 import com.hortifruti.sl.hortifruti.dto.invoice.InvoiceSummaryDetails;
 import com.hortifruti.sl.hortifruti.dto.invoice.InvoiceTaxDetails;
 import com.hortifruti.sl.hortifruti.dto.invoice.ItemTaxDetails;
-import com.hortifruti.sl.hortifruti.model.purchase.CombinedScore;
-import com.hortifruti.sl.hortifruti.service.invoice.InvoiceQuery;
-import com.hortifruti.sl.hortifruti.service.purchase.CombinedScoreService;
+import com.hortifruti.sl.hortifruti.service.invoice.tax.TaxReportSnapshot;
 import java.math.BigDecimal;
-import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
-import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
 
 @Service
-@AllArgsConstructor
 public class RegisterCalculator {
-  private final InvoiceQuery invoiceQuery;
-  private final CombinedScoreService combinedScoreService;
 
-  public List<InvoiceSummaryDetails> generateInvoiceSummaryDetails(
-      LocalDate startDate, LocalDate endDate) {
-    List<CombinedScore> combinedScores = fetchCombinedScores(startDate, endDate);
-
-    return combinedScores.stream()
-        .map(this::processCombinedScore)
-        .filter(summary -> summary != null)
+  public List<InvoiceSummaryDetails> generateInvoiceSummaryDetails(TaxReportSnapshot snapshot) {
+    return snapshot.invoices().stream()
+        .map(this::createInvoiceSummaryDetails)
         .collect(Collectors.toList());
   }
 
-  private InvoiceSummaryDetails processCombinedScore(CombinedScore combinedScore) {
-    try {
-      InvoiceTaxDetails taxDetails =
-          invoiceQuery.extractInvoiceTaxDetails(combinedScore.getInvoiceRef());
-      return createInvoiceSummaryDetails(taxDetails);
-    } catch (Exception e) {
-      logProcessingError(combinedScore, e);
-      return null;
-    }
-  }
-
   private InvoiceSummaryDetails createInvoiceSummaryDetails(InvoiceTaxDetails taxDetails) {
     String especie = "NF-e";
     String serie = "1";
@@ -72,13 +50,4 @@ public class RegisterCalculator {
       default -> BigDecimal.ZERO;
     };
   }
-
-  private List<CombinedScore> fetchCombinedScores(LocalDate startDate, LocalDate endDate) {
-    return combinedScoreService.getCombinedScoresWithInvoice(startDate, endDate);
-  }
-
-  private void logProcessingError(CombinedScore combinedScore, Exception e) {
-    System.err.println("Erro ao processar CombinedScore ID: " + combinedScore.getId());
-    e.printStackTrace();
-  }
 }
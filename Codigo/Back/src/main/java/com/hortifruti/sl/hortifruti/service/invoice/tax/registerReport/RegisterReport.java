@@ -1,8 +1,8 @@
 package com.hortifruti.sl.hortifruti.service.invoice.tax.registerReport;
 
 import com.hortifruti.sl.hortifruti.dto.invoice.InvoiceSummaryDetails;
+import com.hortifruti.sl.hortifruti.service.invoice.tax.TaxReportSnapshot;
 import java.io.IOException;
-import java.time.LocalDate;
 import java.util.List;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -13,10 +13,10 @@ public class RegisterReport {
   private final RegisterCalculator registerReportCalculator;
   private final RegisterPdfGenerator registerReportPdfGenerator;
 
-  public byte[] createRegisterReportPdf(LocalDate startDate, LocalDate endDate) throws IOException {
+  public byte[] createRegisterReportPdf(TaxReportSnapshot snapshot) throws IOException {
     List<InvoiceSummaryDetails> invoiceSummaries =
-        registerReportCalculator.generateInvoiceSummaryDetails(startDate, endDate);
+        registerReportCalculator.generateInvoiceSummaryDetails(snapshot);
     return registerReportPdfGenerator.generateRegisterReportPdf(
-        invoiceSummaries, startDate, endDate);
+        invoiceSummaries, snapshot.startDate(), snapshot.endDate());
   }
 }
@@ -1,8 +1,8 @@
 package com.hortifruti.sl.hortifruti.service.invoice.tax.sales;
 
 import com.hortifruti.sl.hortifruti.dto.invoice.SalesSummaryDetails;
+import com.hortifruti.sl.hortifruti.service.invoice.tax.TaxReportSnapshot;
 import java.io.IOException;
-import java.time.LocalDate;
 import java.util.List;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -13,9 +13,10 @@ public class SalesReport {
   private final SalesCalculator salesCalculator;
   private final SalesPdfGenerator salesPdfGenerator;
 
-  public byte[] createSalesReportPdf(LocalDate startDate, LocalDate endDate) throws IOException {
+  public byte[] createSalesReportPdf(TaxReportSnapshot snapshot) throws IOException {
     List<SalesSummaryDetails> salesSummaries =
-        salesCalculator.generateSalesSummaryDetails(startDate, endDate);
-    return salesPdfGenerator.generateSalesReportPdf(salesSummaries, startDate, endDate);
+        salesCalculator.generateSalesSummaryDetails(snapshot);
+    return salesPdfGenerator.generateSalesReportPdf(
+        salesSummaries, snapshot.startDate(), snapshot.endDate());
   }
 }
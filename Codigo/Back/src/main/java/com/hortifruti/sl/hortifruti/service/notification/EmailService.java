@@ -1,23 +1,30 @@
 package com.hortifruti.sl.hortifruti.service.notification;
 
+import com.hortifruti.sl.hortifruti.config.email.SendGridConfig;
+import com.hortifruti.sl.hortifruti.config.http.OutboundResilience;
 import com.hortifruti.sl.hortifruti.exception.NotificationException;
 import com.sendgrid.*;
 import com.sendgrid.helpers.mail.Mail;
 import com.sendgrid.helpers.mail.objects.Attachments;
 import com.sendgrid.helpers.mail.objects.Content;
 import com.sendgrid.helpers.mail.objects.Email;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import java.io.IOException;
 import java.util.Base64;
 import java.util.List;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 
 @Service
+@RequiredArgsConstructor
 public class EmailService {
 
-  @Value("${sendgrid.api.key}")
-  private String sendGridApiKey;
+  private final SendGrid sendGrid;
+  private final MeterRegistry meterRegistry;
+  private final OutboundResilience outboundResilience;
 
   @Value("${sendgrid.from.email}")
   private String fromEmail;
@@ -32,13 +39,12 @@ public class EmailService {
 
       addInlineLogo(mail);
 
-      SendGrid sg = new SendGrid(sendGridApiKey);
       Request request = new Request();
       request.setMethod(Method.POST);
       request.setEndpoint("mail/send");
       request.setBody(mail.build());
 
-      Response response = sg.api(request);
+      Response response = send(request);
 
       if (response.getStatusCode() >= 200 && response.getStatusCode() < 300) {
         return true;
@@ -74,13 +80,12 @@ public class EmailService {
         }
       }
 
-      SendGrid sg = new SendGrid(sendGridApiKey);
       Request request = new Request();
       request.setMethod(Method.POST);
       request.setEndpoint("mail/send");
       request.setBody(mail.build());
 
-      Response response = sg.api(request);
+      Response response = send(request);
 
       if (response.getStatusCode() >= 200 && response.getStatusCode() < 300) {
         return true;
@@ -121,4 +126,29 @@ public class EmailService {
       // Sem log, sem erro → apenas não adiciona logo
     }
   }
+
+  /**
+   * Envia a requisição pelo cliente compartilhado, sob o bulkhead e o circuit breaker do SendGrid,
+   * registrando latência e status por envio.
+   */
+  private Response send(Request request) throws IOException {
+    Timer.Sample sample = Timer.start(meterRegistry);
+    String status = "IO_ERROR";
+    try {
+      Response response =
+          outboundResilience.execute(
+              SendGridConfig.PROVIDER,
+              () -> sendGrid.api(request),
+              r -> r.getStatusCode() >= 500 || r.getStatusCode() == 429);
+      status = String.valueOf(response.getStatusCode());
+      return response;
+    } finally {
+      sample.stop(
+          Timer.builder("sendgrid.requests")
+              .tag("client.name", "api.sendgrid.com")
+              .tag("uri", request.getEndpoint())
+              .tag("status", status)
+              .register(meterRegistry));
+    }
+  }
 }
@@ -1,5 +1,6 @@
 package com.hortifruti.sl.hortifruti.service.purchase;
 
+import com.hortifruti.sl.hortifruti.dto.purchase.client.ClientMonthlySummary;
 import com.hortifruti.sl.hortifruti.dto.purchase.client.ClientRequest;
 import com.hortifruti.sl.hortifruti.dto.purchase.client.ClientResponse;
 import com.hortifruti.sl.hortifruti.dto.purchase.client.ClientSelectionInfo;
@@ -12,6 +13,7 @@ import com.hortifruti.sl.hortifruti.model.purchase.Client;
 import com.hortifruti.sl.hortifruti.model.purchase.Purchase;
 import com.hortifruti.sl.hortifruti.repository.purchase.ClientRepository;
 import com.hortifruti.sl.hortifruti.repository.purchase.PurchaseRepository;
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -126,18 +128,27 @@ public class ClientService {
             .findById(id)
             .orElseThrow(() -> new ClientException("Cliente não encontrado"));
 
-    List<Purchase> purchases = purchaseRepository.findByClientId(id);
+    List<ClientMonthlySummary> months = purchaseRepository.summarizeByMonth(id);
 
-    int totalProducts =
-        purchases.stream().mapToInt(purchase -> purchase.getInvoiceProducts().size()).sum();
+    long totalProducts = months.stream().mapToLong(ClientMonthlySummary::totalProducts).sum();
 
-    double totalValue =
-        purchases.stream().mapToDouble(purchase -> purchase.getTotal().doubleValue()).sum();
+    BigDecimal totalValue =
+        months.stream()
+            .map(ClientMonthlySummary::totalValue)
+            .reduce(BigDecimal.ZERO, BigDecimal::add);
 
     return new ClientSummary(
         client.getClientName(), client.getAddress(), totalProducts, totalValue);
   }
 
+  @Transactional(readOnly = true)
+  public List<ClientMonthlySummary> getClientMonthlySummary(Long id) {
+    if (!clientRepository.existsById(id)) {
+      throw new ClientException("Cliente não encontrado");
+    }
+    return purchaseRepository.summarizeByMonth(id);
+  }
+
   public List<ClientSelectionInfo> getAllClientsForSelection() {
     return clientRepository.findAll().stream()
         .map(client -> new ClientSelectionInfo(client.getId(), client.getClientName()))
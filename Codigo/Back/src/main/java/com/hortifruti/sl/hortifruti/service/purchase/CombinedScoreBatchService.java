@@ -0,0 +1,206 @@
+package com.hortifruti.sl.hortifruti.service.purchase;
+
+import com.hortifruti.sl.hortifruti.dto.purchase.CombinedScoreBatchRequest;
+import com.hortifruti.sl.hortifruti.dto.purchase.CombinedScoreBatchResponse;
+import com.hortifruti.sl.hortifruti.dto.purchase.CombinedScoreBatchResponse.ClientTotal;
+import com.hortifruti.sl.hortifruti.exception.CombinedScoreException;
+import com.hortifruti.sl.hortifruti.exception.PurchaseException;
+import com.hortifruti.sl.hortifruti.model.enumeration.BatchStatus;
+import com.hortifruti.sl.hortifruti.model.purchase.Client;
+import com.hortifruti.sl.hortifruti.model.purchase.CombinedScore;
+import com.hortifruti.sl.hortifruti.model.purchase.CombinedScoreBatch;
+import com.hortifruti.sl.hortifruti.repository.purchase.ClientRepository;
+import com.hortifruti.sl.hortifruti.repository.purchase.CombinedScoreBatchRepository;
+import com.hortifruti.sl.hortifruti.repository.purchase.CombinedScoreRepository;
+import com.hortifruti.sl.hortifruti.repository.purchase.PurchaseRepository;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+/**
+ * Gera os agrupamentos de fechamento do mês para todos os clientes com compras no período. Os
+ * clientes são processados em blocos, cada um em sua própria transação, e o lote guarda o último
+ * cliente concluído para que uma nova chamada para o mesmo período retome de onde parou.
+ *
+ * <p>A geração roda em segundo plano, uma por vez; o controle é local a esta instância da
+ * aplicação, então a geração em lote supõe uma única instância do back-end.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CombinedScoreBatchService {
+
+  private static final int CHUNK_SIZE = 50;
+
+  private final CombinedScoreBatchRepository combinedScoreBatchRepository;
+  private final CombinedScoreRepository combinedScoreRepository;
+  private final PurchaseRepository purchaseRepository;
+  private final ClientRepository clientRepository;
+  private final CombinedScoreService combinedScoreService;
+
+  private final ExecutorService executor =
+      Executors.newSingleThreadExecutor(
+          Thread.ofPlatform().name("combined-score-batch-", 0).factory());
+  private final AtomicBoolean running = new AtomicBoolean();
+
+  /**
+   * Inicia, ou retoma, a geração do período em segundo plano e devolve o lote na hora. O andamento
+   * é consultado por {@link #getBatch}.
+   */
+  public CombinedScoreBatchResponse generateForPeriod(CombinedScoreBatchRequest request) {
+    if (request.endDate().isBefore(request.startDate())) {
+      throw new PurchaseException("Data final não pode ser anterior à data inicial.");
+    }
+
+    if (!running.compareAndSet(false, true)) {
+      throw new CombinedScoreException(
+          "Já existe uma geração de agrupamentos em lote em andamento.");
+    }
+
+    try {
+      CombinedScoreBatch batch = findOrCreateBatch(request.startDate(), request.endDate());
+      batch.setStatus(BatchStatus.EM_ANDAMENTO);
+      batch.setErrorMessage(null);
+      combinedScoreBatchRepository.save(batch);
+      CombinedScoreBatchResponse response = toResponse(batch);
+
+      executor.execute(
+          () -> {
+            try {
+              runBatch(batch);
+            } finally {
+              running.set(false);
+            }
+          });
+      return response;
+    } catch (RuntimeException e) {
+      running.set(false);
+      throw e;
+    }
+  }
+
+  @PreDestroy
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  public CombinedScoreBatchResponse getBatch(Long id) {
+    CombinedScoreBatch batch =
+        combinedScoreBatchRepository
+            .findById(id)
+            .orElseThrow(
+                () -> new CombinedScoreException("Lote com o ID " + id + " não encontrado."));
+    return toResponse(batch);
+  }
+
+  private CombinedScoreBatch findOrCreateBatch(LocalDateTime startDate, LocalDateTime endDate) {
+    return combinedScoreBatchRepository
+        .findFirstByStartDateAndEndDateOrderByCreatedAtDesc(startDate, endDate)
+        .map(
+            existing -> {
+              if (existing.getStatus() == BatchStatus.CONCLUIDO) {
+                throw new CombinedScoreException(
+                    "Os agrupamentos deste período já foram gerados no lote "
+                        + existing.getId()
+                        + ".");
+              }
+              log.info(
+                  "Retomando lote {} a partir do cliente {}",
+                  existing.getId(),
+                  existing.getLastClientId());
+              return existing;
+            })
+        .orElseGet(
+            () ->
+                combinedScoreBatchRepository.save(
+                    CombinedScoreBatch.builder().startDate(startDate).endDate(endDate).build()));
+  }
+
+  /** Processa os blocos de clientes; uma falha fica registrada no lote, que pode ser retomado. */
+  private void runBatch(CombinedScoreBatch batch) {
+    try {
+      List<Long> clientIds = nextChunk(batch);
+      while (!clientIds.isEmpty()) {
+        combinedScoreService.createCombinedScoresForClients(batch, clientIds);
+        log.info(
+            "Lote {}: {} clientes processados (último cliente {})",
+            batch.getId(),
+            batch.getProcessedClients(),
+            batch.getLastClientId());
+        clientIds = nextChunk(batch);
+      }
+    } catch (RuntimeException e) {
+      log.error("Erro ao gerar agrupamentos do lote {}", batch.getId(), e);
+      CombinedScoreBatch failed =
+          combinedScoreBatchRepository.findById(batch.getId()).orElse(batch);
+      failed.setStatus(BatchStatus.FALHOU);
+      failed.setErrorMessage(truncate(e.getMessage()));
+      combinedScoreBatchRepository.save(failed);
+      return;
+    }
+
+    batch.setStatus(BatchStatus.CONCLUIDO);
+    batch.setFinishedAt(LocalDateTime.now());
+    combinedScoreBatchRepository.save(batch);
+  }
+
+  private List<Long> nextChunk(CombinedScoreBatch batch) {
+    return purchaseRepository.findClientIdsWithPurchasesBetween(
+        batch.getStartDate(),
+        batch.getEndDate(),
+        batch.getLastClientId(),
+        PageRequest.of(0, CHUNK_SIZE));
+  }
+
+  private CombinedScoreBatchResponse toResponse(CombinedScoreBatch batch) {
+    List<CombinedScore> combinedScores =
+        combinedScoreRepository.findByBatchIdOrderByClientIdAsc(batch.getId());
+
+    Map<Long, String> clientNames =
+        clientRepository
+            .findAllById(combinedScores.stream().map(CombinedScore::getClientId).toList())
+            .stream()
+            .collect(Collectors.toMap(Client::getId, Client::getClientName));
+
+    List<ClientTotal> clients =
+        combinedScores.stream()
+            .map(
+                score ->
+                    new ClientTotal(
+                        score.getClientId(),
+                        clientNames.get(score.getClientId()),
+                        score.getId(),
+                        score.getTotalValue()))
+            .toList();
+
+    BigDecimal totalValue =
+        clients.stream().map(ClientTotal::totalValue).reduce(BigDecimal.ZERO, BigDecimal::add);
+
+    return new CombinedScoreBatchResponse(
+        batch.getId(),
+        batch.getStartDate(),
+        batch.getEndDate(),
+        batch.getStatus(),
+        batch.getProcessedClients(),
+        totalValue,
+        batch.getErrorMessage(),
+        clients);
+  }
+
+  private String truncate(String message) {
+    if (message == null) {
+      return null;
+    }
+    return message.length() > 1000 ? message.substring(0, 1000) : message;
+  }
+}
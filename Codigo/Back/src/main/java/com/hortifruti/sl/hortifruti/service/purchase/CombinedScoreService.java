@@ -3,23 +3,31 @@ package com.hortifruti.sl.hortifruti.service.purchase;
 import com.hortifruti.sl.hortifruti.dto.purchase.CombinedScoreRequest;
 import com.hortifruti.sl.hortifruti.dto.purchase.CombinedScoreResponse;
 import com.hortifruti.sl.hortifruti.dto.purchase.GroupedProductResponse;
+import com.hortifruti.sl.hortifruti.dto.purchase.UpdateGroupedProduct;
 import com.hortifruti.sl.hortifruti.exception.ClientException;
 import com.hortifruti.sl.hortifruti.exception.CombinedScoreException;
 import com.hortifruti.sl.hortifruti.exception.PurchaseException;
 import com.hortifruti.sl.hortifruti.mapper.CombinedScoreMapper;
+import com.hortifruti.sl.hortifruti.mapper.GroupedProductMapper;
+import com.hortifruti.sl.hortifruti.model.enumeration.IssuanceOperation;
 import com.hortifruti.sl.hortifruti.model.enumeration.Status;
 import com.hortifruti.sl.hortifruti.model.purchase.Client;
 import com.hortifruti.sl.hortifruti.model.purchase.CombinedScore;
+import com.hortifruti.sl.hortifruti.model.purchase.CombinedScoreBatch;
 import com.hortifruti.sl.hortifruti.model.purchase.GroupedProduct;
-import com.hortifruti.sl.hortifruti.model.purchase.Purchase;
 import com.hortifruti.sl.hortifruti.repository.purchase.ClientRepository;
+import com.hortifruti.sl.hortifruti.repository.purchase.CombinedScoreBatchRepository;
 import com.hortifruti.sl.hortifruti.repository.purchase.CombinedScoreRepository;
 import com.hortifruti.sl.hortifruti.repository.purchase.GroupedProductRepository;
 import com.hortifruti.sl.hortifruti.repository.purchase.PurchaseRepository;
+import com.hortifruti.sl.hortifruti.service.billet.BilletListingCache;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 import lombok.AllArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -36,6 +44,10 @@ public class CombinedScoreService {
   private final PurchaseRepository purchaseRepository;
   private final GroupedProductService productGrouper;
   private final GroupedProductRepository productGrouperRepository;
+  private final CombinedScoreBatchRepository combinedScoreBatchRepository;
+  private final GroupedProductMapper groupedProductMapper;
+  private final IssuanceIdempotency issuanceIdempotency;
+  private final BilletListingCache billetListingCache;
 
   public void cancelGrouping(Long id) {
     if (!combinedScoreRepository.existsById(id)) {
@@ -87,31 +99,73 @@ public class CombinedScoreService {
                     new ClientException(
                         "Cliente com ID " + request.clientId() + " não encontrado."));
 
-    List<Purchase> purchases =
-        purchaseRepository.findByClientIdAndPurchaseDateBetween(
-            request.clientId(), request.startDate(), request.endDate());
-
-    if (purchases.isEmpty()) {
+    if (!purchaseRepository.existsByClientIdAndPurchaseDateBetween(
+        request.clientId(), request.startDate(), request.endDate())) {
       throw new PurchaseException(
           "Nenhuma compra encontrada para o cliente no período especificado.");
     }
 
-    List<GroupedProduct> groupedProducts =
-        productGrouper.groupProducts(purchases, client.isVariablePrice());
-
-    BigDecimal totalValue =
-        groupedProducts.stream()
-            .map(GroupedProduct::getTotalValue)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
     CombinedScore combinedScore =
-        CombinedScore.builder().clientId(request.clientId()).totalValue(totalValue).build();
+        CombinedScore.builder()
+            .clientId(request.clientId())
+            .totalValue(BigDecimal.ZERO)
+            .periodStart(request.startDate())
+            .periodEnd(request.endDate())
+            .build();
 
     CombinedScore savedCombinedScore = combinedScoreRepository.saveAndFlush(combinedScore);
 
-    groupedProducts.forEach(product -> product.setCombinedScore(savedCombinedScore));
+    productGrouper.groupProducts(
+        savedCombinedScore, request.startDate(), request.endDate(), client.isVariablePrice());
+
+    savedCombinedScore.setTotalValue(
+        productGrouperRepository.sumTotalValueByCombinedScoreId(savedCombinedScore.getId()));
+  }
 
-    productGrouperRepository.saveAll(groupedProducts);
+  /**
+   * Gera, em uma única transação, os agrupamentos de um bloco de clientes do lote e registra o
+   * último cliente processado. Se algo falhar, nada do bloco é persistido e o lote pode ser
+   * retomado a partir dele.
+   */
+  @Transactional
+  public void createCombinedScoresForClients(CombinedScoreBatch batch, List<Long> clientIds) {
+    List<Client> clients = clientRepository.findAllById(clientIds);
+
+    List<CombinedScore> combinedScores =
+        combinedScoreRepository.saveAllAndFlush(
+            clients.stream()
+                .map(
+                    client ->
+                        CombinedScore.builder()
+                            .clientId(client.getId())
+                            .totalValue(BigDecimal.ZERO)
+                            .batchId(batch.getId())
+                            .periodStart(batch.getStartDate())
+                            .periodEnd(batch.getEndDate())
+                            .build())
+                .toList());
+
+    Map<Long, Boolean> variablePriceByClient =
+        clients.stream().collect(Collectors.toMap(Client::getId, Client::isVariablePrice));
+
+    Map<Boolean, List<Long>> idsByPriceMode =
+        combinedScores.stream()
+            .collect(
+                Collectors.partitioningBy(
+                    score -> variablePriceByClient.get(score.getClientId()),
+                    Collectors.mapping(CombinedScore::getId, Collectors.toList())));
+
+    productGrouper.groupProducts(
+        idsByPriceMode.get(true), batch.getStartDate(), batch.getEndDate(), true);
+    productGrouper.groupProducts(
+        idsByPriceMode.get(false), batch.getStartDate(), batch.getEndDate(), false);
+
+    combinedScoreRepository.updateTotalValueFromGroupedProducts(
+        combinedScores.stream().map(CombinedScore::getId).toList());
+
+    batch.setLastClientId(Collections.max(clientIds));
+    batch.setProcessedClients(batch.getProcessedClients() + clients.size());
+    combinedScoreBatchRepository.save(batch);
   }
 
   @Transactional
@@ -145,6 +199,7 @@ public class CombinedScoreService {
 
     combinedScore.setStatus(Status.PAGO);
     combinedScoreRepository.save(combinedScore);
+    billetListingCache.invalidate(combinedScore.getClientId());
   }
 
   @Transactional
@@ -168,6 +223,7 @@ public class CombinedScoreService {
 
     combinedScore.setStatus(Status.CANCELADO);
     combinedScoreRepository.save(combinedScore);
+    billetListingCache.invalidate(combinedScore.getClientId());
   }
 
   @Transactional(readOnly = true)
@@ -211,10 +267,11 @@ public class CombinedScoreService {
     combinedScore.setHasBillet(false);
 
     combinedScoreRepository.save(combinedScore);
+    issuanceIdempotency.release(combinedScore.getId(), IssuanceOperation.BOLETO);
   }
 
   @Transactional
-  public void updateStatusAfterInvoiceCancellation(String ref) {
+  public CombinedScore updateStatusAfterInvoiceCancellation(String ref) {
     CombinedScore combinedScore =
         combinedScoreRepository
             .findByInvoiceRef(ref)
@@ -231,6 +288,8 @@ public class CombinedScoreService {
     combinedScore.setHasInvoice(false);
 
     combinedScoreRepository.save(combinedScore);
+    issuanceIdempotency.release(combinedScore.getId(), IssuanceOperation.NOTA_FISCAL);
+    return combinedScore;
   }
 
   @Transactional
@@ -253,6 +312,56 @@ public class CombinedScoreService {
     combinedScoreRepository.save(combinedScore);
   }
 
+  /**
+   * Aplica ao valor total do agrupamento a diferença de valor de um produto agrupado editado, com
+   * um único UPDATE no banco.
+   */
+  @Transactional
+  public void applyTotalDelta(Long combinedScoreId, BigDecimal delta) {
+    if (delta.signum() == 0) {
+      return;
+    }
+    if (combinedScoreRepository.addToTotalValue(combinedScoreId, delta) == 0) {
+      throw new CombinedScoreException(
+          "Agrupamento com o ID " + combinedScoreId + " não encontrado.");
+    }
+  }
+
+  @Transactional
+  public GroupedProductResponse updateGroupedProduct(Long id, UpdateGroupedProduct dto) {
+    GroupedProduct groupedProduct =
+        productGrouperRepository
+            .findById(id)
+            .orElseThrow(
+                () ->
+                    new CombinedScoreException(
+                        "Produto agrupado com o ID " + id + " não encontrado."));
+
+    CombinedScore combinedScore = groupedProduct.getCombinedScore();
+    if (combinedScore.isHasBillet() || combinedScore.isHasInvoice()) {
+      throw new CombinedScoreException(
+          "Não é possível editar produtos de um agrupamento com boleto ou nota fiscal emitidos.");
+    }
+    // O total de um agrupamento pago já foi somado ao total de compras do cliente
+    if (combinedScore.getStatus() == Status.PAGO) {
+      throw new CombinedScoreException(
+          "Não é possível editar produtos de um agrupamento com pagamento confirmado.");
+    }
+
+    BigDecimal previousValue = groupedProduct.getTotalValue();
+    BigDecimal newValue = dto.price().multiply(BigDecimal.valueOf(dto.quantity()));
+
+    groupedProduct.setName(dto.name());
+    groupedProduct.setPrice(dto.price());
+    groupedProduct.setQuantity(dto.quantity());
+    groupedProduct.setTotalValue(newValue);
+
+    GroupedProduct updated = productGrouperRepository.save(groupedProduct);
+    applyTotalDelta(combinedScore.getId(), newValue.subtract(previousValue));
+
+    return groupedProductMapper.toResponse(updated);
+  }
+
   @Transactional(readOnly = true)
   public List<CombinedScore> getCombinedScoresWithInvoice(LocalDate startDate, LocalDate endDate) {
     return combinedScoreRepository.findByHasInvoiceTrueAndConfirmedAtBetween(startDate, endDate);
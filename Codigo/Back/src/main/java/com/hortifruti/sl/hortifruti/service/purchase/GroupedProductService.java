@@ -1,139 +1,69 @@
 package com.hortifruti.sl.hortifruti.service.purchase;
 
 import com.hortifruti.sl.hortifruti.exception.PurchaseException;
-import com.hortifruti.sl.hortifruti.model.purchase.GroupedProduct;
-import com.hortifruti.sl.hortifruti.model.purchase.InvoiceProduct;
-import com.hortifruti.sl.hortifruti.model.purchase.Purchase;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.util.ArrayList;
+import com.hortifruti.sl.hortifruti.model.purchase.CombinedScore;
+import com.hortifruti.sl.hortifruti.repository.purchase.GroupedProductRepository;
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 import lombok.AllArgsConstructor;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 
 @Service
 @AllArgsConstructor
 public class GroupedProductService {
 
-  public List<GroupedProduct> groupProducts(List<Purchase> purchases, boolean isFixedPrice) {
+  private final GroupedProductRepository groupedProductRepository;
+
+  /**
+   * Agrupa no banco os produtos das compras do cliente no período e insere os produtos agrupados no
+   * agrupamento informado. Retorna a quantidade de produtos agrupados.
+   */
+  public int groupProducts(
+      CombinedScore combinedScore,
+      LocalDateTime startDate,
+      LocalDateTime endDate,
+      boolean isFixedPrice) {
+    return groupProducts(List.of(combinedScore.getId()), startDate, endDate, isFixedPrice);
+  }
+
+  /**
+   * Agrupa no banco, em uma única consulta, os produtos das compras de vários clientes no período.
+   * Cada agrupamento recebe os produtos do seu próprio cliente.
+   */
+  public int groupProducts(
+      List<Long> combinedScoreIds,
+      LocalDateTime startDate,
+      LocalDateTime endDate,
+      boolean isFixedPrice) {
+    if (combinedScoreIds.isEmpty()) {
+      return 0;
+    }
     if (isFixedPrice) {
-      return groupProductsWithFixedPrice(purchases);
+      return groupProductsWithFixedPrice(combinedScoreIds, startDate, endDate);
     } else {
-      return groupProductsWithVariablePrice(purchases);
+      return groupProductsWithVariablePrice(combinedScoreIds, startDate, endDate);
     }
   }
 
-  private List<GroupedProduct> groupProductsWithFixedPrice(List<Purchase> purchases) {
-    if (purchases == null || purchases.isEmpty()) {
-      return new ArrayList<>();
-    }
-
+  private int groupProductsWithFixedPrice(
+      List<Long> combinedScoreIds, LocalDateTime startDate, LocalDateTime endDate) {
     try {
-      return new ArrayList<>(
-          purchases.stream()
-              .flatMap(purchase -> purchase.getInvoiceProducts().stream())
-              .collect(
-                  Collectors.groupingBy(
-                      product -> product.getCode() + "-" + product.getName(),
-                      Collectors.collectingAndThen(
-                          Collectors.toList(), this::createGroupedProductForFixedPrice)))
-              .values());
-    } catch (Exception e) {
+      return groupedProductRepository.insertGroupedWithFixedPrice(
+          combinedScoreIds, startDate, endDate);
+    } catch (DataAccessException e) {
       throw new PurchaseException("Erro ao agrupar produtos com preço fixo: " + e.getMessage(), e);
     }
   }
 
-  private List<GroupedProduct> groupProductsWithVariablePrice(List<Purchase> purchases) {
-    if (purchases == null || purchases.isEmpty()) {
-      return new ArrayList<>();
-    }
-
+  private int groupProductsWithVariablePrice(
+      List<Long> combinedScoreIds, LocalDateTime startDate, LocalDateTime endDate) {
     try {
-      Map<String, List<InvoiceProduct>> groupedByCodeAndName =
-          purchases.stream()
-              .flatMap(purchase -> purchase.getInvoiceProducts().stream())
-              .collect(Collectors.groupingBy(product -> extractProductKey(product)));
-
-      return groupedByCodeAndName.entrySet().stream()
-          .map(entry -> createGroupedProductForVariablePrice(entry.getKey(), entry.getValue()))
-          .collect(Collectors.toList());
-    } catch (Exception e) {
+      return groupedProductRepository.insertGroupedWithVariablePrice(
+          combinedScoreIds, startDate, endDate);
+    } catch (DataAccessException e) {
       throw new PurchaseException(
           "Erro ao agrupar produtos com preço variável: " + e.getMessage(), e);
     }
   }
-
-  private String extractProductKey(InvoiceProduct product) {
-    try {
-      return product.getCode().split("-")[0] + "-" + product.getName();
-    } catch (Exception e) {
-      throw new PurchaseException("Formato de código de produto inválido: " + product.getCode(), e);
-    }
-  }
-
-  private GroupedProduct createGroupedProductForFixedPrice(List<InvoiceProduct> productList) {
-    if (productList == null || productList.isEmpty()) {
-      throw new PurchaseException(
-          "Lista de produtos vazia ao tentar agrupar produtos com preço fixo");
-    }
-
-    InvoiceProduct firstProduct = productList.get(0);
-
-    int totalQuantity = productList.stream().mapToInt(InvoiceProduct::getQuantity).sum();
-
-    BigDecimal price = firstProduct.getPrice();
-
-    BigDecimal totalValue = price.multiply(BigDecimal.valueOf(totalQuantity));
-
-    return GroupedProduct.builder()
-        .code(firstProduct.getCode())
-        .name(firstProduct.getName())
-        .price(price)
-        .quantity(totalQuantity)
-        .totalValue(totalValue)
-        .build();
-  }
-
-  private GroupedProduct createGroupedProductForVariablePrice(
-      String key, List<InvoiceProduct> productList) {
-    if (productList == null || productList.isEmpty()) {
-      throw new PurchaseException(
-          "Lista de produtos vazia ao tentar agrupar produtos com preço variável");
-    }
-
-    BigDecimal totalValue = BigDecimal.ZERO;
-    BigDecimal totalQuantityDecimal = BigDecimal.ZERO;
-    int totalQuantity = 0;
-
-    InvoiceProduct firstProduct = productList.get(0);
-
-    for (InvoiceProduct product : productList) {
-      int quantity = product.getQuantity();
-      totalQuantity += quantity;
-
-      BigDecimal quantityBD = BigDecimal.valueOf(quantity);
-      totalQuantityDecimal = totalQuantityDecimal.add(quantityBD);
-      totalValue = totalValue.add(product.getPrice().multiply(quantityBD));
-    }
-
-    BigDecimal weightedAvgPrice;
-    try {
-      weightedAvgPrice =
-          totalQuantityDecimal.compareTo(BigDecimal.ZERO) == 0
-              ? BigDecimal.ZERO
-              : totalValue.divide(totalQuantityDecimal, 4, RoundingMode.HALF_EVEN);
-    } catch (ArithmeticException e) {
-      throw new PurchaseException("Erro ao calcular preço médio ponderado: " + e.getMessage(), e);
-    }
-
-    return GroupedProduct.builder()
-        .code(firstProduct.getCode())
-        .name(firstProduct.getName())
-        .price(weightedAvgPrice)
-        .quantity(totalQuantity)
-        .totalValue(totalValue)
-        .build();
-  }
 }
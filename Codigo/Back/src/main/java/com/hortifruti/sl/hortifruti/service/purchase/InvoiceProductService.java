@@ -5,10 +5,11 @@ import com.hortifruti.sl.hortifruti.dto.purchase.UpdateInvoiceProduct;
 import com.hortifruti.sl.hortifruti.exception.PurchaseException;
 import com.hortifruti.sl.hortifruti.mapper.InvoiceProductMapper;
 import com.hortifruti.sl.hortifruti.model.purchase.InvoiceProduct;
-import com.hortifruti.sl.hortifruti.model.purchase.Purchase;
 import com.hortifruti.sl.hortifruti.repository.purchase.InvoiceProductRepository;
+import java.math.BigDecimal;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @AllArgsConstructor
@@ -18,10 +19,13 @@ public class InvoiceProductService {
   private final InvoiceProductMapper mapper;
   private final PurchaseService purchaseService;
 
+  @Transactional
   public InvoiceProductResponse updateInvoiceProduct(Long id, UpdateInvoiceProduct dto) {
     InvoiceProduct invoiceProduct =
         repository.findById(id).orElseThrow(() -> new PurchaseException("Produto não encontrado"));
 
+    BigDecimal previousValue = lineValue(invoiceProduct);
+
     invoiceProduct.setCode(dto.code());
     invoiceProduct.setName(dto.name());
     invoiceProduct.setPrice(dto.price());
@@ -29,17 +33,23 @@ public class InvoiceProductService {
     invoiceProduct.setUnitType(dto.unitType());
 
     InvoiceProduct updated = repository.save(invoiceProduct);
-    purchaseService.recalculateTotal(updated.getPurchase().getId());
+    purchaseService.applyTotalDelta(
+        updated.getPurchase().getId(), lineValue(updated).subtract(previousValue));
 
     return mapper.toResponse(updated);
   }
 
+  @Transactional
   public void deleteInvoiceProduct(Long id) {
-    if (!repository.existsById(id)) {
-      throw new PurchaseException("Produto não encontrado");
-    }
-    Purchase purchase = repository.findById(id).get().getPurchase();
-    repository.deleteById(id);
-    purchaseService.recalculateTotal(purchase.getId());
+    InvoiceProduct invoiceProduct =
+        repository.findById(id).orElseThrow(() -> new PurchaseException("Produto não encontrado"));
+    Long purchaseId = invoiceProduct.getPurchase().getId();
+    BigDecimal removedValue = lineValue(invoiceProduct);
+    repository.delete(invoiceProduct);
+    purchaseService.applyTotalDelta(purchaseId, removedValue.negate());
+  }
+
+  private BigDecimal lineValue(InvoiceProduct invoiceProduct) {
+    return invoiceProduct.getPrice().multiply(BigDecimal.valueOf(invoiceProduct.getQuantity()));
   }
 }
@@ -0,0 +1,241 @@
+package com.hortifruti.sl.hortifruti.service.purchase;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hortifruti.sl.hortifruti.exception.IssuanceInProgressException;
+import com.hortifruti.sl.hortifruti.model.enumeration.IssuanceOperation;
+import com.hortifruti.sl.hortifruti.model.enumeration.IssuanceStatus;
+import com.hortifruti.sl.hortifruti.model.purchase.IssuanceKey;
+import com.hortifruti.sl.hortifruti.repository.purchase.IssuanceKeyRepository;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Idempotência das emissões externas por agrupamento e operação.
+ *
+ * <p>A chave é travada em transação própria antes da chamada ao provedor, então cliques duplos e
+ * reenvios concorrentes recebem {@link IssuanceInProgressException} em vez de emitir de novo. Assim
+ * que o provedor responde, a resposta é gravada na chave também em transação própria, antes de
+ * qualquer passo local; uma falha depois disso desfaz só o trabalho de quem chamou, e a repetição
+ * recebe a resposta gravada sem nova chamada remota. Se a gravação não chegar a acontecer (queda
+ * entre a resposta e o commit), a próxima tentativa consulta o provedor antes de emitir de novo.
+ */
+@Slf4j
+@Service
+public class IssuanceIdempotency {
+  /** Tempo máximo de uma emissão; depois disso uma trava abandonada pode ser retomada. */
+  private static final Duration LOCK_DURATION = Duration.ofMinutes(2);
+
+  private final IssuanceKeyRepository issuanceKeyRepository;
+  private final ObjectMapper objectMapper;
+  private final TransactionTemplate requiresNew;
+
+  /** Emissão remota; recebe a referência estável da chave. */
+  @FunctionalInterface
+  public interface IssuanceCall<T> {
+    T issue(String reference) throws Exception;
+  }
+
+  /**
+   * Consulta ao provedor feita numa nova tentativa, antes de emitir: encontra o documento que uma
+   * tentativa anterior emitiu mas não chegou a gravar.
+   */
+  @FunctionalInterface
+  public interface IssuanceRecovery<T> {
+    Optional<T> find(String reference) throws Exception;
+  }
+
+  public IssuanceIdempotency(
+      IssuanceKeyRepository issuanceKeyRepository,
+      ObjectMapper objectMapper,
+      PlatformTransactionManager transactionManager) {
+    this.issuanceKeyRepository = issuanceKeyRepository;
+    this.objectMapper = objectMapper;
+    this.requiresNew = new TransactionTemplate(transactionManager);
+    this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+  }
+
+  /**
+   * Executa a emissão uma única vez por agrupamento e operação.
+   *
+   * @param combinedScoreId ID do agrupamento
+   * @param operation Operação de emissão
+   * @param responseType Tipo da resposta gravada na chave
+   * @param call Emissão remota
+   * @return Resposta da emissão, nova ou a gravada na primeira execução
+   * @throws IssuanceInProgressException Se outra requisição estiver emitindo
+   */
+  public <T> T issue(
+      Long combinedScoreId,
+      IssuanceOperation operation,
+      Class<T> responseType,
+      IssuanceCall<T> call)
+      throws Exception {
+    return issue(combinedScoreId, operation, responseType, reference -> Optional.empty(), call);
+  }
+
+  /**
+   * Executa a emissão uma única vez por agrupamento e operação, consultando o provedor antes de
+   * emitir quando a chave vem de uma tentativa anterior que falhou ou expirou.
+   *
+   * @param combinedScoreId ID do agrupamento
+   * @param operation Operação de emissão
+   * @param responseType Tipo da resposta gravada na chave
+   * @param recovery Consulta ao provedor feita nas novas tentativas
+   * @param call Emissão remota
+   * @return Resposta da emissão, nova, recuperada ou a gravada na primeira execução
+   * @throws IssuanceInProgressException Se outra requisição estiver emitindo
+   */
+  public <T> T issue(
+      Long combinedScoreId,
+      IssuanceOperation operation,
+      Class<T> responseType,
+      IssuanceRecovery<T> recovery,
+      IssuanceCall<T> call)
+      throws Exception {
+    IssuanceKey key = acquire(combinedScoreId, operation);
+
+    if (key.getStatus() == IssuanceStatus.CONCLUIDO) {
+      log.info(
+          "Emissão {} do agrupamento {} já concluída; devolvendo a resposta gravada.",
+          operation,
+          combinedScoreId);
+      return objectMapper.readValue(key.getResponse(), responseType);
+    }
+
+    T response;
+    try {
+      Optional<T> recovered =
+          key.getAttempts() > 1 ? recovery.find(key.getReference()) : Optional.empty();
+      if (recovered.isPresent()) {
+        log.info(
+            "Emissão {} do agrupamento {} encontrada no provedor; não será emitida de novo.",
+            operation,
+            combinedScoreId);
+      }
+      response = recovered.isPresent() ? recovered.get() : call.issue(key.getReference());
+    } catch (Exception e) {
+      markFailed(key.getId(), e);
+      throw e;
+    }
+
+    complete(key.getId(), response);
+    return response;
+  }
+
+  /** Libera a chave para uma nova emissão, após a baixa do boleto ou o cancelamento da nota. */
+  @Transactional
+  public void release(Long combinedScoreId, IssuanceOperation operation) {
+    issuanceKeyRepository.deleteByCombinedScoreIdAndOperation(combinedScoreId, operation);
+  }
+
+  /**
+   * Reabre uma emissão concluída que o provedor rejeitou depois (ex.: NF-e aceita para
+   * processamento e então denegada). A próxima tentativa reenvia a mesma referência.
+   *
+   * @param reason Situação informada pelo provedor
+   */
+  @Transactional
+  public void reopenRejected(Long combinedScoreId, IssuanceOperation operation, String reason) {
+    issuanceKeyRepository
+        .findForUpdate(combinedScoreId, operation)
+        .filter(key -> key.getStatus() == IssuanceStatus.CONCLUIDO)
+        .ifPresent(
+            key -> {
+              key.setStatus(IssuanceStatus.FALHOU);
+              key.setLockedUntil(null);
+              key.setResponse(null);
+              key.setErrorMessage(truncate(reason));
+              issuanceKeyRepository.save(key);
+            });
+  }
+
+  private IssuanceKey acquire(Long combinedScoreId, IssuanceOperation operation) {
+    try {
+      return requiresNew.execute(status -> lockKey(combinedScoreId, operation));
+    } catch (DataIntegrityViolationException e) {
+      // Outra requisição criou a chave ao mesmo tempo; a segunda leitura já a encontra
+      return requiresNew.execute(status -> lockKey(combinedScoreId, operation));
+    }
+  }
+
+  private IssuanceKey lockKey(Long combinedScoreId, IssuanceOperation operation) {
+    LocalDateTime now = LocalDateTime.now();
+    IssuanceKey key = issuanceKeyRepository.findForUpdate(combinedScoreId, operation).orElse(null);
+
+    if (key == null) {
+      return issuanceKeyRepository.saveAndFlush(
+          IssuanceKey.builder()
+              .combinedScoreId(combinedScoreId)
+              .operation(operation)
+              .reference(UUID.randomUUID().toString())
+              .status(IssuanceStatus.EM_ANDAMENTO)
+              .lockedUntil(now.plus(LOCK_DURATION))
+              .attempts(1)
+              .build());
+    }
+
+    if (key.getStatus() == IssuanceStatus.CONCLUIDO) {
+      return key;
+    }
+    if (key.getStatus() == IssuanceStatus.EM_ANDAMENTO
+        && key.getLockedUntil() != null
+        && key.getLockedUntil().isAfter(now)) {
+      throw new IssuanceInProgressException(
+          "Já existe uma emissão em andamento para este agrupamento. Aguarde alguns instantes.");
+    }
+
+    // Falhou ou a trava expirou: nova tentativa com a mesma referência
+    key.setStatus(IssuanceStatus.EM_ANDAMENTO);
+    key.setLockedUntil(now.plus(LOCK_DURATION));
+    key.setAttempts(key.getAttempts() + 1);
+    key.setErrorMessage(null);
+    return issuanceKeyRepository.saveAndFlush(key);
+  }
+
+  private void complete(Long keyId, Object response) throws JsonProcessingException {
+    String json = objectMapper.writeValueAsString(response);
+    requiresNew.executeWithoutResult(
+        status -> {
+          IssuanceKey key = issuanceKeyRepository.findById(keyId).orElseThrow();
+          key.setStatus(IssuanceStatus.CONCLUIDO);
+          key.setLockedUntil(null);
+          key.setResponse(json);
+          issuanceKeyRepository.save(key);
+        });
+  }
+
+  private void markFailed(Long keyId, Exception error) {
+    try {
+      requiresNew.executeWithoutResult(
+          status ->
+              issuanceKeyRepository
+                  .findById(keyId)
+                  .ifPresent(
+                      key -> {
+                        key.setStatus(IssuanceStatus.FALHOU);
+                        key.setLockedUntil(null);
+                        key.setErrorMessage(truncate(error.getMessage()));
+                      }));
+    } catch (RuntimeException e) {
+      // A trava expira sozinha; não encobre o erro original
+      log.warn("Não foi possível registrar a falha da emissão {}: {}", keyId, e.getMessage());
+    }
+  }
+
+  private String truncate(String message) {
+    if (message == null) {
+      return null;
+    }
+    return message.length() > 1000 ? message.substring(0, 1000) : message;
+  }
+}
@@ -114,6 +114,20 @@ public class PurchaseService {
     purchaseRepository.save(purchase);
   }
 
+  /**
+   * Aplica ao total da compra a diferença de valor de um produto editado ou removido, com um único
+   * UPDATE no banco.
+   */
+  @Transactional
+  public void applyTotalDelta(Long purchaseId, BigDecimal delta) {
+    if (delta.signum() == 0) {
+      return;
+    }
+    if (purchaseRepository.addToTotal(purchaseId, delta, LocalDateTime.now()) == 0) {
+      throw new PurchaseException("Compra não encontrada com o ID: " + purchaseId);
+    }
+  }
+
   @Transactional(readOnly = true)
   public Page<PurchaseResponse> getPurchasesByDateRange(
       LocalDateTime startDate, LocalDateTime endDate, Pageable pageable) {
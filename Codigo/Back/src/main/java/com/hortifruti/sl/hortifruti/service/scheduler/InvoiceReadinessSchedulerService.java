@@ -0,0 +1,24 @@
+package com.hortifruti.sl.hortifruti.service.scheduler;
+
+import com.hortifruti.sl.hortifruti.service.invoice.InvoiceDocumentReadiness;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/** Acompanha em segundo plano as NF-e em processamento até o DANFE e o XML ficarem prontos. */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class InvoiceReadinessSchedulerService {
+  private final InvoiceDocumentReadiness invoiceDocumentReadiness;
+
+  @Scheduled(fixedDelay = 5000) // 5 segundos
+  public void pollPendingInvoices() {
+    try {
+      invoiceDocumentReadiness.pollPending();
+    } catch (Exception e) {
+      log.error("Erro ao consultar NF-e em processamento", e);
+    }
+  }
+}
@@ -0,0 +1,35 @@
+package com.hortifruti.sl.hortifruti.service.scheduler;
+
+import com.hortifruti.sl.hortifruti.service.invoice.InvoiceSnapshotStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Preenche aos poucos a cópia local das NF-e emitidas antes da sua criação, sem concentrar as
+ * consultas à Focus NFe em uma única execução.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class InvoiceSnapshotSchedulerService {
+  public static final int DEFAULT_BATCH_SIZE = 200;
+
+  private final InvoiceSnapshotStore invoiceSnapshotStore;
+
+  /** Executa todos os dias às 4h */
+  @Scheduled(cron = "0 0 4 * * *")
+  public void scheduledBackfill() {
+    try {
+      backfill(DEFAULT_BATCH_SIZE);
+    } catch (Exception e) {
+      log.error("Erro durante a cópia local das NF-e", e);
+    }
+  }
+
+  /** Retorna a quantidade de notas gravadas. */
+  public int backfill(int limit) {
+    return invoiceSnapshotStore.backfill(Math.max(1, limit));
+  }
+}
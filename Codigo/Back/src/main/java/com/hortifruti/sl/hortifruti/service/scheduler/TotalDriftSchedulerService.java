@@ -0,0 +1,59 @@
+package com.hortifruti.sl.hortifruti.service.scheduler;
+
+import com.hortifruti.sl.hortifruti.repository.purchase.CombinedScoreRepository;
+import com.hortifruti.sl.hortifruti.repository.purchase.PurchaseRepository;
+import com.hortifruti.sl.hortifruti.service.purchase.CombinedScoreService;
+import com.hortifruti.sl.hortifruti.service.purchase.PurchaseService;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Verifica se os totais mantidos por diferença (compras e agrupamentos) continuam iguais à soma dos
+ * seus produtos. Divergências são registradas no log e corrigidas com o recálculo completo.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TotalDriftSchedulerService {
+
+  private final PurchaseRepository purchaseRepository;
+  private final CombinedScoreRepository combinedScoreRepository;
+  private final PurchaseService purchaseService;
+  private final CombinedScoreService combinedScoreService;
+
+  /** Executa todos os dias às 3h */
+  @Scheduled(cron = "0 0 3 * * *")
+  public void scheduledTotalDriftCheck() {
+    try {
+      checkTotalDrift();
+    } catch (Exception e) {
+      log.error("Erro durante a verificação de divergência de totais", e);
+    }
+  }
+
+  /** Retorna a quantidade de totais divergentes encontrados e corrigidos. */
+  public int checkTotalDrift() {
+    List<Long> purchaseIds = purchaseRepository.findIdsWithTotalDrift();
+    if (!purchaseIds.isEmpty()) {
+      log.warn("Compras com total divergente da soma dos produtos: {}", purchaseIds);
+      purchaseIds.forEach(purchaseService::recalculateTotal);
+    }
+
+    List<Long> combinedScoreIds = combinedScoreRepository.findIdsWithTotalValueDrift();
+    if (!combinedScoreIds.isEmpty()) {
+      log.warn(
+          "Agrupamentos com valor total divergente da soma dos produtos agrupados: {}",
+          combinedScoreIds);
+      combinedScoreIds.forEach(combinedScoreService::recalculateTotal);
+    }
+
+    int drifted = purchaseIds.size() + combinedScoreIds.size();
+    if (drifted == 0) {
+      log.info("Verificação de totais concluída. Nenhuma divergência encontrada.");
+    }
+    return drifted;
+  }
+}
@@ -49,6 +49,11 @@ export const invoiceService = {
         headers: getAuthHeaders(),
       });
 
+      if (response.status === 202) {
+        // Nota ainda em processamento na Focus NFe; tentar de novo após o Retry-After
+        throw new Error("DANFE ainda em processamento. Tente novamente em alguns instantes.");
+      }
+
       if (!response.ok) {
         throw new Error(`Erro ao baixar DANFE: ${response.status}`);
       }
@@ -68,6 +73,11 @@ export const invoiceService = {
         headers: getAuthHeaders(),
       });
 
+      if (response.status === 202) {
+        // Nota ainda em processamento na Focus NFe; tentar de novo após o Retry-After
+        throw new Error("XML ainda em processamento. Tente novamente em alguns instantes.");
+      }
+
       if (!response.ok) {
         throw new Error(`Erro ao baixar XML: ${response.status}`);
       }